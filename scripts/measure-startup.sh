@@ -0,0 +1,96 @@
+#!/usr/bin/env bash
+# Starts the service repeatedly and records, per run, the time until
+# /actuator/health answers UP and the resident set size at that moment.
+#
+#   scripts/measure-startup.sh jvm|aot|native [runs]
+#
+# jvm and aot run build/libs/webflux_course-1.0.0.jar, aot with
+# -Dspring.aot.enabled=true; native runs build/native/nativeCompile/webflux_course.
+# The AOT variants only run the profile they were processed with, so build them
+# with it: ./gradlew bootJar -PaotProfiles=embedded for aot, and
+# ./gradlew nativeCompile -PaotProfiles=embedded for native. The embedded
+# profile is used by default so no database is needed; set PROFILE to override
+# it, and PORT, JAVA_OPTS or OUT as needed. Results are appended to $OUT as CSV,
+# and the medians of this invocation are printed as a row of the Results
+# table in docs/startup.md.
+set -euo pipefail
+
+mode=${1:-jvm}
+runs=${2:-5}
+port=${PORT:-18080}
+profile=${PROFILE:-embedded}
+out=${OUT:-build/reports/startup/startup.csv}
+jar=build/libs/webflux_course-1.0.0.jar
+image=build/native/nativeCompile/webflux_course
+
+case "$mode" in
+	jvm) command=(java ${JAVA_OPTS:-} -jar "$jar") ;;
+	aot) command=(java ${JAVA_OPTS:-} -Dspring.aot.enabled=true -jar "$jar") ;;
+	native) command=("$image") ;;
+	*) echo "Unknown mode: $mode" >&2; exit 1 ;;
+esac
+
+# The AOT sources register the repository of the profile they were processed
+# with; a jar processed for another profile would fail to start or measure the
+# wrong beans.
+if [ "$mode" = aot ]; then
+	case "$profile" in
+		embedded) repository=EmbeddedUserRepository ;;
+		*) repository=MongoUserRepository ;;
+	esac
+	if ! unzip -l "$jar" 2>/dev/null | grep -q "${repository}__BeanDefinitions.class"; then
+		echo "$jar was not AOT-processed for the $profile profile;" \
+			"build it with ./gradlew bootJar -PaotProfiles=$profile" >&2
+		exit 1
+	fi
+fi
+
+mkdir -p "$(dirname "$out")"
+[ -s "$out" ] || echo "timestamp,commit,mode,profile,run,ready_ms,rss_kb" > "$out"
+commit=$(git rev-parse --short HEAD 2>/dev/null || echo unknown)
+ready_all=()
+rss_all=()
+
+for run in $(seq 1 "$runs"); do
+	start=$(date +%s%N)
+	"${command[@]}" --server.port="$port" --spring.profiles.active="$profile" > /dev/null 2>&1 &
+	pid=$!
+	trap 'kill $pid 2>/dev/null' EXIT
+
+	until curl -sf "http://localhost:$port/actuator/health" | grep -q '"UP"'; do
+		if ! kill -0 "$pid" 2>/dev/null; then
+			echo "Run $run: the service exited before becoming healthy" >&2
+			exit 1
+		fi
+		sleep 0.01
+	done
+	ready_ms=$(( ($(date +%s%N) - start) / 1000000 ))
+	rss_kb=$(ps -o rss= -p "$pid" | tr -d ' ')
+
+	kill "$pid"
+	wait "$pid" 2>/dev/null || true
+	trap - EXIT
+
+	echo "$(date -u +%FT%TZ),$commit,$mode,$profile,$run,$ready_ms,$rss_kb" >> "$out"
+	echo "$mode run $run: ready in ${ready_ms} ms, RSS ${rss_kb} KB"
+	ready_all+=("$ready_ms")
+	rss_all+=("$rss_kb")
+done
+
+median() {
+	printf '%s\n' "$@" | sort -n | awk '{ v[NR] = $1 } END { print (NR % 2) ? v[(NR + 1) / 2] : int((v[NR / 2] + v[NR / 2 + 1]) / 2) }'
+}
+
+case "$mode" in
+	jvm) variant=JVM ;;
+	aot) variant="JVM with AOT" ;;
+	native) variant=Native ;;
+esac
+machine="$(uname -m) $(nproc) CPUs"
+if [ "$mode" = native ]; then
+	jdk=native
+else
+	jdk=$(java ${JAVA_OPTS:-} -version 2>&1 | head -n 1 | sed 's/"//g')
+fi
+echo
+echo "| $commit | $machine / $jdk | $variant, $profile, $runs runs | $(median "${ready_all[@]}") | $(( $(median "${rss_all[@]}") / 1024 )) |"
@@ -0,0 +1,85 @@
+package br.com.ju.webflux.course.benchmark;
+
+import static java.lang.String.format;
+import static org.springframework.http.HttpStatus.NOT_FOUND;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import br.com.ju.webflux.course.controller.exceptions.StandardError;
+import br.com.ju.webflux.course.entity.User;
+import br.com.ju.webflux.course.service.exception.ObjectNotFoundException;
+import reactor.core.publisher.Mono;
+
+/**
+ * Throughput of turning a missing user into a 404 body. {@code exception}
+ * is the former path (formatted message, exception with a stack trace),
+ * {@code stacklessException} the one update and delete still take and
+ * {@code emptySignal} the one findById takes now. Calls are nested
+ * {@code stackDepth} frames deep, since filling a stack trace costs in
+ * proportion to the depth of a real request's stack.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class NotFoundBenchmark {
+
+	private static final String ID = "64b7f0c2a1d3e45f6a7b8c9d";
+	private static final String PATH = "/users/" + ID;
+
+	@Param({ "16", "128" })
+	private int stackDepth;
+
+	@Benchmark
+	public StandardError exception() {
+		return nested(stackDepth, () -> Mono.<User>empty()
+				.switchIfEmpty(Mono.error(new TracedNotFoundException(
+						format("Object not found. Id: %s, Type: %s ", ID, User.class.getSimpleName()))))
+				.map(user -> (StandardError) null)
+				.onErrorResume(ex -> Mono.just(error(ex.getMessage())))
+				.block());
+	}
+
+	@Benchmark
+	public StandardError stacklessException() {
+		return nested(stackDepth, () -> Mono.<User>empty()
+				.switchIfEmpty(Mono.error(() -> new ObjectNotFoundException(ID, User.class)))
+				.map(user -> (StandardError) null)
+				.onErrorResume(ex -> Mono.just(error(ex.getMessage())))
+				.block());
+	}
+
+	@Benchmark
+	public StandardError emptySignal() {
+		return nested(stackDepth, () -> Mono.<User>empty()
+				.map(user -> (StandardError) null)
+				.switchIfEmpty(Mono.fromSupplier(() -> error(ObjectNotFoundException.message(ID, User.class))))
+				.block());
+	}
+
+	private static StandardError error(final String message) {
+		return StandardError.of(NOT_FOUND, PATH, message);
+	}
+
+	private static StandardError nested(final int depth, final Supplier<StandardError> body) {
+		return depth == 0 ? body.get() : nested(depth - 1, body);
+	}
+
+	private static final class TracedNotFoundException extends RuntimeException {
+
+		private static final long serialVersionUID = 1L;
+
+		TracedNotFoundException(final String message) {
+			super(message);
+		}
+	}
+
+}
@@ -0,0 +1,71 @@
+package br.com.ju.webflux.course.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import br.com.ju.webflux.course.model.request.UserRequest;
+import br.com.ju.webflux.course.model.response.UserResponse;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class UserJsonCodecBenchmark {
+	
+	private ObjectWriter requestWriter;
+	private ObjectReader requestReader;
+	private ObjectWriter responseWriter;
+	private ObjectReader responseReader;
+	
+	private UserRequest request;
+	private UserResponse response;
+	private byte[] requestJson;
+	private byte[] responseJson;
+	
+	@Setup
+	public void setUp() throws IOException {
+		ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+		requestWriter = objectMapper.writerFor(UserRequest.class);
+		requestReader = objectMapper.readerFor(UserRequest.class);
+		responseWriter = objectMapper.writerFor(UserResponse.class);
+		responseReader = objectMapper.readerFor(UserResponse.class);
+		
+		request = new UserRequest("Sara Mello", "sara@mail.com", "123456");
+		response = new UserResponse("64b7f0c2a1d3e45f6a7b8c9d", "Sara Mello", "sara@mail.com", 3L);
+		requestJson = requestWriter.writeValueAsBytes(request);
+		responseJson = responseWriter.writeValueAsBytes(response);
+	}
+	
+	@Benchmark
+	public byte[] encodeRequest() throws IOException {
+		return requestWriter.writeValueAsBytes(request);
+	}
+	
+	@Benchmark
+	public UserRequest decodeRequest() throws IOException {
+		return requestReader.readValue(requestJson);
+	}
+	
+	@Benchmark
+	public byte[] encodeResponse() throws IOException {
+		return responseWriter.writeValueAsBytes(response);
+	}
+	
+	@Benchmark
+	public UserResponse decodeResponse() throws IOException {
+		return responseReader.readValue(responseJson);
+	}
+
+}
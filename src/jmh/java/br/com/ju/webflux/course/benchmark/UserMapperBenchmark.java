@@ -0,0 +1,55 @@
+package br.com.ju.webflux.course.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import br.com.ju.webflux.course.entity.User;
+import br.com.ju.webflux.course.mapper.impl.UserMapperImpl;
+import br.com.ju.webflux.course.model.request.UserRequest;
+import br.com.ju.webflux.course.model.response.UserResponse;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class UserMapperBenchmark {
+	
+	private final UserMapperImpl mapper = new UserMapperImpl();
+	
+	private UserRequest request;
+	private User entity;
+	
+	@Setup
+	public void setUp() {
+		request = new UserRequest("Sara Mello", "sara@mail.com", "123456");
+		entity = User.builder()
+				.id("64b7f0c2a1d3e45f6a7b8c9d")
+				.name("Sara Mello")
+				.email("sara@mail.com")
+				.password("123456")
+				.version(3L)
+				.build();
+	}
+	
+	@Benchmark
+	public User toEntity() {
+		return mapper.toEntity(request);
+	}
+	
+	@Benchmark
+	public User toEntityMerge() {
+		return mapper.toEntity(request, entity);
+	}
+	
+	@Benchmark
+	public UserResponse toResponse() {
+		return mapper.toResponse(entity);
+	}
+
+}
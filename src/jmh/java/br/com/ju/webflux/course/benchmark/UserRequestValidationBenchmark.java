@@ -0,0 +1,62 @@
+package br.com.ju.webflux.course.benchmark;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import br.com.ju.webflux.course.model.request.UserRequest;
+import br.com.ju.webflux.course.validator.TrimStringValidator;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class UserRequestValidationBenchmark {
+	
+	private final TrimStringValidator trimStringValidator = new TrimStringValidator();
+	
+	private ValidatorFactory factory;
+	private Validator validator;
+	private UserRequest valid;
+	private UserRequest invalid;
+	
+	@Setup
+	public void setUp() {
+		factory = Validation.buildDefaultValidatorFactory();
+		validator = factory.getValidator();
+		valid = new UserRequest("Sara Mello", "sara@mail.com", "123456");
+		invalid = new UserRequest(" Sa", "sara.mail.com", "1 ");
+	}
+	
+	@TearDown
+	public void tearDown() {
+		factory.close();
+	}
+	
+	@Benchmark
+	public boolean trimString() {
+		return trimStringValidator.isValid(valid.name(), null);
+	}
+	
+	@Benchmark
+	public Set<ConstraintViolation<UserRequest>> validRequest() {
+		return validator.validate(valid);
+	}
+	
+	@Benchmark
+	public Set<ConstraintViolation<UserRequest>> invalidRequest() {
+		return validator.validate(invalid);
+	}
+
+}
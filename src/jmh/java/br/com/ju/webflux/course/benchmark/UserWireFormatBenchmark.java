@@ -0,0 +1,85 @@
+package br.com.ju.webflux.course.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import br.com.ju.webflux.course.model.response.UserResponse;
+
+/**
+ * Encode cost of a {@code GET /users} body of {@code users} responses as JSON
+ * and as Smile, with and without gzip. The encoded sizes are printed once per
+ * trial, so the run reports bytes on the wire next to the timings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UserWireFormatBenchmark {
+
+	@Param({ "20", "500" })
+	private int users;
+
+	private ObjectWriter jsonWriter;
+	private ObjectWriter smileWriter;
+	private List<UserResponse> page;
+
+	@Setup
+	public void setUp() throws IOException {
+		jsonWriter = Jackson2ObjectMapperBuilder.json().build().writer();
+		smileWriter = Jackson2ObjectMapperBuilder.json().factory(new SmileFactory()).build().writer();
+
+		page = new ArrayList<>(users);
+		for (int i = 0; i < users; i++) {
+			page.add(new UserResponse(String.format("64b7f0c2a1d3e45f6a7b%04x", i),
+					"User " + i, "user" + i + "@mail.com", (long) i % 7));
+		}
+
+		System.out.printf("%n%d users: json=%d B, json+gzip=%d B, smile=%d B, smile+gzip=%d B%n", users,
+				json().length, jsonGzip().length, smile().length, smileGzip().length);
+	}
+
+	@Benchmark
+	public byte[] json() throws IOException {
+		return jsonWriter.writeValueAsBytes(page);
+	}
+
+	@Benchmark
+	public byte[] jsonGzip() throws IOException {
+		return gzip(jsonWriter);
+	}
+
+	@Benchmark
+	public byte[] smile() throws IOException {
+		return smileWriter.writeValueAsBytes(page);
+	}
+
+	@Benchmark
+	public byte[] smileGzip() throws IOException {
+		return gzip(smileWriter);
+	}
+
+	private byte[] gzip(final ObjectWriter writer) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+			writer.writeValue(out, page);
+		}
+		return bytes.toByteArray();
+	}
+
+}
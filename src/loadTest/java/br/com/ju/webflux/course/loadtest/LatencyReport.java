@@ -0,0 +1,64 @@
+package br.com.ju.webflux.course.loadtest;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Per-endpoint latency histograms and error counts, safe to record into from
+ * any number of threads.
+ */
+final class LatencyReport {
+	
+	private static final long HIGHEST_TRACKABLE = TimeUnit.MINUTES.toNanos(1);
+	
+	private final Map<String, Histogram> histograms = new ConcurrentSkipListMap<>();
+	private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+	
+	void record(final String endpoint, final long nanos, final boolean success) {
+		histograms.computeIfAbsent(endpoint, key -> new ConcurrentHistogram(HIGHEST_TRACKABLE, 3))
+		.recordValue(Math.min(nanos, HIGHEST_TRACKABLE));
+		if (!success) {
+			errors.computeIfAbsent(endpoint, key -> new LongAdder()).increment();
+		}
+	}
+	
+	void reset() {
+		histograms.clear();
+		errors.clear();
+	}
+	
+	long totalCount() {
+		return histograms.values().stream().mapToLong(Histogram::getTotalCount).sum();
+	}
+	
+	void print(final PrintStream out, final Duration elapsed) {
+		final double seconds = elapsed.toNanos() / 1e9;
+		out.printf("%-22s %10s %8s %10s %10s %10s %10s%n",
+				"endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms");
+		histograms.forEach((endpoint, histogram) -> {
+			LongAdder failed = errors.get(endpoint);
+			out.printf("%-22s %10d %8d %10.1f %10.3f %10.3f %10.3f%n",
+					endpoint,
+					histogram.getTotalCount(),
+					failed == null ? 0 : failed.sum(),
+					histogram.getTotalCount() / seconds,
+					millis(histogram.getValueAtPercentile(50)),
+					millis(histogram.getValueAtPercentile(99)),
+					millis(histogram.getValueAtPercentile(99.9)));
+		});
+		out.printf("%-22s %10d %8s %10.1f%n", "total", totalCount(), "", totalCount() / seconds);
+	}
+	
+	private static double millis(final long nanos) {
+		return nanos / 1e6;
+	}
+
+}
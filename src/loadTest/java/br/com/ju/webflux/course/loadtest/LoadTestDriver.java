@@ -0,0 +1,121 @@
+package br.com.ju.webflux.course.loadtest;
+
+import static org.springframework.http.MediaType.APPLICATION_NDJSON;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.http.HttpStatusCode;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import br.com.ju.webflux.course.model.request.UserRequest;
+import br.com.ju.webflux.course.model.response.UserBatchResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Drives a weighted mix of create, read, update and delete calls from a fixed
+ * number of concurrent virtual clients, each issuing its next call as soon as
+ * the previous one completes.
+ */
+final class LoadTestDriver {
+	
+	private final WebClient client;
+	private final LoadTestSettings settings;
+	private final LatencyReport report = new LatencyReport();
+	private final List<String> ids = new ArrayList<>();
+	private final AtomicLong sequence = new AtomicLong();
+	
+	LoadTestDriver(final WebClient client, final LoadTestSettings settings) {
+		this.client = client;
+		this.settings = settings;
+	}
+	
+	void seed() {
+		Flux<UserRequest> requests = Flux.range(0, settings.seedUsers()).map(i -> newRequest());
+		client.post().uri("/users/batch")
+		.contentType(APPLICATION_NDJSON)
+		.accept(APPLICATION_NDJSON)
+		.body(requests, UserRequest.class)
+		.retrieve()
+		.bodyToFlux(UserBatchResponse.class)
+		.filter(result -> result.status() == UserBatchResponse.Status.CREATED)
+		.doOnNext(result -> addId(result.id()))
+		.blockLast();
+	}
+	
+	LatencyReport run() {
+		runFor(settings.warmup());
+		report.reset();
+		runFor(settings.duration());
+		return report;
+	}
+	
+	private void runFor(final Duration duration) {
+		final long deadline = System.nanoTime() + duration.toNanos();
+		Flux.range(0, settings.concurrency())
+		.flatMap(worker -> Mono.defer(this::next).repeat(() -> System.nanoTime() < deadline),
+				settings.concurrency())
+		.blockLast();
+	}
+	
+	private Mono<Void> next() {
+		int pick = ThreadLocalRandom.current().nextInt(settings.totalWeight());
+		if ((pick -= settings.createWeight()) < 0) {
+			return create();
+		}
+		String id = randomId();
+		if (id == null) {
+			return create();
+		}
+		if ((pick -= settings.readWeight()) < 0) {
+			return timed("GET /users/{id}", client.get().uri("/users/{id}", id));
+		}
+		if (pick - settings.updateWeight() < 0) {
+			return timed("PATCH /users/{id}", client.patch().uri("/users/{id}", id)
+					.bodyValue(new UserRequest("Updated " + sequence.incrementAndGet(), null, null)));
+		}
+		removeId(id);
+		return timed("DELETE /users/{id}", client.delete().uri("/users/{id}", id));
+	}
+	
+	private Mono<Void> create() {
+		return timed("POST /users", client.post().uri("/users").bodyValue(newRequest()));
+	}
+	
+	private Mono<Void> timed(final String endpoint, final WebClient.RequestHeadersSpec<?> request) {
+		return Mono.defer(() -> {
+			final long start = System.nanoTime();
+			return request.exchangeToMono(response -> response.releaseBody()
+					.thenReturn(response.statusCode()))
+					.onErrorResume(ex -> Mono.just(HttpStatusCode.valueOf(599)))
+					.doOnNext(status -> report.record(endpoint, System.nanoTime() - start, status.is2xxSuccessful()))
+					.then();
+		});
+	}
+	
+	private UserRequest newRequest() {
+		long n = sequence.incrementAndGet();
+		return new UserRequest("Load User " + n, "load" + n + "@mail.com", "secret" + (n % 1000));
+	}
+	
+	private synchronized void addId(final String id) {
+		ids.add(id);
+	}
+	
+	private synchronized String randomId() {
+		return ids.isEmpty() ? null : ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+	}
+	
+	private synchronized void removeId(final String id) {
+		int index = ids.indexOf(id);
+		if (index >= 0) {
+			ids.set(index, ids.get(ids.size() - 1));
+			ids.remove(ids.size() - 1);
+		}
+	}
+
+}
@@ -0,0 +1,42 @@
+package br.com.ju.webflux.course.loadtest;
+
+import java.time.Duration;
+
+/**
+ * Load profile read from {@code loadtest.*} system properties. The mix weights
+ * are relative; a weight of zero disables the operation.
+ */
+record LoadTestSettings(
+		
+		int concurrency,
+		Duration warmup,
+		Duration duration,
+		int seedUsers,
+		int createWeight,
+		int readWeight,
+		int updateWeight,
+		int deleteWeight
+		
+		) {
+	
+	static LoadTestSettings fromSystemProperties() {
+		return new LoadTestSettings(
+				Integer.getInteger("loadtest.concurrency", 32),
+				duration("loadtest.warmup", "5s"),
+				duration("loadtest.duration", "30s"),
+				Integer.getInteger("loadtest.seed-users", 5_000),
+				Integer.getInteger("loadtest.mix.create", 10),
+				Integer.getInteger("loadtest.mix.read", 70),
+				Integer.getInteger("loadtest.mix.update", 15),
+				Integer.getInteger("loadtest.mix.delete", 5));
+	}
+	
+	int totalWeight() {
+		return createWeight + readWeight + updateWeight + deleteWeight;
+	}
+	
+	private static Duration duration(final String key, final String defaultValue) {
+		return Duration.parse("PT" + System.getProperty(key, defaultValue).toUpperCase());
+	}
+
+}
@@ -0,0 +1,57 @@
+package br.com.ju.webflux.course.loadtest;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import de.flapdoodle.embed.mongo.commands.ServerAddress;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.mongo.transitions.Mongod;
+import de.flapdoodle.embed.mongo.transitions.RunningMongodProcess;
+import de.flapdoodle.reverse.TransitionWalker;
+
+@SpringBootTest(webEnvironment = RANDOM_PORT)
+class UserLoadTest {
+	
+	private static TransitionWalker.ReachedState<RunningMongodProcess> mongod;
+	
+	@LocalServerPort
+	private int port;
+	
+	@DynamicPropertySource
+	static void mongoProperties(DynamicPropertyRegistry registry) {
+		mongod = Mongod.instance().start(Version.Main.V6_0);
+		ServerAddress address = mongod.current().getServerAddress();
+		registry.add("spring.data.mongodb.uri",
+				() -> "mongodb://" + address.getHost() + ":" + address.getPort() + "/loadtest");
+	}
+	
+	@AfterAll
+	static void stopMongo() {
+		if (mongod != null) {
+			mongod.close();
+		}
+	}
+	
+	@Test
+	void mixedTraffic() {
+		final var settings = LoadTestSettings.fromSystemProperties();
+		final var client = WebClient.create("http://localhost:" + port);
+		final var driver = new LoadTestDriver(client, settings);
+		
+		driver.seed();
+		LatencyReport report = driver.run();
+		
+		System.out.printf("%nconcurrency=%d duration=%s%n", settings.concurrency(), settings.duration());
+		report.print(System.out, settings.duration());
+		assertTrue(report.totalCount() > 0);
+	}
+
+}
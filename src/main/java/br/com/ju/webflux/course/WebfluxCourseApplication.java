@@ -2,10 +2,12 @@ package br.com.ju.webflux.course;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 
 import lombok.Generated;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
 @Generated
 public class WebfluxCourseApplication {
 
@@ -0,0 +1,69 @@
+package br.com.ju.webflux.course.cache;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+
+import br.com.ju.webflux.course.config.EmailFilterProperties;
+import br.com.ju.webflux.course.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bloom filter of registered e-mails, warmed from the collection once the
+ * application is ready. A negative answer means the e-mail is certainly not
+ * registered; a positive one only means it may be. Until warm-up completes
+ * every e-mail is reported as possibly registered. E-mails of deleted users
+ * are not removed, which only costs an extra indexed lookup for them.
+ */
+@Slf4j
+@Component
+public class EmailFilter {
+	
+	private final BloomFilter<CharSequence> filter;
+	private final UserRepository repository;
+	private final Counter skipped;
+	private final Counter checked;
+	private volatile boolean warmed;
+	
+	public EmailFilter(final EmailFilterProperties properties, final UserRepository repository,
+			final MeterRegistry registry) {
+		this.filter = BloomFilter.create(
+				Funnels.stringFunnel(UTF_8), properties.expectedEmails(), properties.falsePositiveRate());
+		this.repository = repository;
+		this.skipped = registry.counter("users.email.filter", "result", "skipped");
+		this.checked = registry.counter("users.email.filter", "result", "checked");
+	}
+	
+	@EventListener(ApplicationReadyEvent.class)
+	public void warmUp() {
+		repository.findAllEmails()
+		.doOnNext(this::put)
+		.count()
+		.subscribe(
+				count -> {
+					warmed = true;
+					log.info("E-mail filter warmed with {} e-mails", count);
+				},
+				ex -> log.warn("E-mail filter warm-up failed, every e-mail will be checked", ex));
+	}
+	
+	public boolean mightContain(final String email) {
+		boolean result = !warmed || filter.mightContain(email);
+		(result ? checked : skipped).increment();
+		return result;
+	}
+	
+	public void put(final String email) {
+		if (email != null) {
+			filter.put(email);
+		}
+	}
+
+}
@@ -0,0 +1,52 @@
+package br.com.ju.webflux.course.cache;
+
+import static java.util.concurrent.CompletableFuture.completedFuture;
+
+import java.util.function.Function;
+
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import br.com.ju.webflux.course.config.UserCacheProperties;
+import br.com.ju.webflux.course.entity.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import reactor.core.publisher.Mono;
+
+/**
+ * Read-through cache of users by id. Concurrent misses for the same id share a
+ * single load, and empty results are not cached. Hit, miss and eviction counts
+ * are published as {@code cache.*} meters tagged {@code cache=users}.
+ */
+@Component
+public class UserCache {
+	
+	private final AsyncCache<String, User> cache;
+	
+	public UserCache(final UserCacheProperties properties, final MeterRegistry registry) {
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(properties.maximumSize())
+				.expireAfterWrite(properties.expireAfterWrite())
+				.recordStats()
+				.buildAsync();
+		CaffeineCacheMetrics.monitor(registry, cache.synchronous(), "users");
+	}
+	
+	public Mono<User> get(final String id, final Function<String, Mono<User>> loader) {
+		return Mono.fromFuture(
+				() -> cache.get(id, (key, executor) -> loader.apply(key).toFuture()), true);
+	}
+	
+	public void put(final User user) {
+		if (user.getId() != null) {
+			cache.put(user.getId(), completedFuture(user));
+		}
+	}
+	
+	public void invalidate(final String id) {
+		cache.synchronous().invalidate(id);
+	}
+
+}
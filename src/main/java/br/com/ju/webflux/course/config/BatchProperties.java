@@ -0,0 +1,20 @@
+package br.com.ju.webflux.course.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Batch endpoints split their input into chunks of {@code chunkSize} items,
+ * one bulk write each. Updates and deletes run up to {@code maxInFlight}
+ * chunks at the same time.
+ */
+@ConfigurationProperties(prefix = "users.batch")
+public record BatchProperties(
+		
+		@DefaultValue("500")
+		int chunkSize,
+		
+		@DefaultValue("4")
+		int maxInFlight
+		
+		) {}
@@ -0,0 +1,33 @@
+package br.com.ju.webflux.course.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * Lets clients that send or accept {@code application/x-jackson-smile} use
+ * binary Smile instead of JSON. The Smile mapper is built from the same
+ * builder as the JSON one, so {@code spring.jackson.*} settings apply to both.
+ */
+@Configuration
+public class CodecConfig implements WebFluxConfigurer {
+	
+	private final ObjectMapper smileMapper;
+	
+	public CodecConfig(final Jackson2ObjectMapperBuilder builder) {
+		this.smileMapper = builder.factory(new SmileFactory()).build();
+	}
+	
+	@Override
+	public void configureHttpMessageCodecs(final ServerCodecConfigurer configurer) {
+		configurer.defaultCodecs().jackson2SmileEncoder(new Jackson2SmileEncoder(smileMapper));
+		configurer.defaultCodecs().jackson2SmileDecoder(new Jackson2SmileDecoder(smileMapper));
+	}
+
+}
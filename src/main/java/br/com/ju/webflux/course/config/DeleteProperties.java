@@ -0,0 +1,28 @@
+package br.com.ju.webflux.course.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * How users are deleted. {@code HARD} removes the document. {@code SOFT} only
+ * stamps {@code deletedAt}, hides the user from every read and leaves the
+ * removal to the TTL index on that field.
+ */
+@ConfigurationProperties(prefix = "users.delete")
+public record DeleteProperties(
+
+		@DefaultValue("HARD")
+		Mode mode
+
+		) {
+
+	public enum Mode {
+		HARD,
+		SOFT
+	}
+
+	public boolean soft() {
+		return mode == Mode.SOFT;
+	}
+
+}
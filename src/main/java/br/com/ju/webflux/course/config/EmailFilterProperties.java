@@ -0,0 +1,15 @@
+package br.com.ju.webflux.course.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "users.email-filter")
+public record EmailFilterProperties(
+		
+		@DefaultValue("1000000")
+		long expectedEmails,
+		
+		@DefaultValue("0.01")
+		double falsePositiveRate
+		
+		) {}
@@ -0,0 +1,22 @@
+package br.com.ju.webflux.course.config;
+
+import java.nio.file.Path;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Embedded user store of the {@code embedded} profile. Without a {@code log}
+ * users only live in memory. With one, every write is appended to that file
+ * and the store is rebuilt from it on start; {@code fsync} forces each append
+ * to disk before the write completes.
+ */
+@ConfigurationProperties(prefix = "users.embedded")
+public record EmbeddedProperties(
+		
+		Path log,
+		
+		@DefaultValue("false")
+		boolean fsync
+		
+		) {}
@@ -0,0 +1,34 @@
+package br.com.ju.webflux.course.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Fan-out of the user change stream. Each subscriber gets its own buffer of
+ * {@code bufferSize} events; when a slow subscriber fills it, {@code overflow}
+ * decides which events it loses. The shared change stream stays open for
+ * {@code gracePeriod} after its last subscriber leaves.
+ */
+@ConfigurationProperties(prefix = "users.events")
+public record EventProperties(
+		
+		@DefaultValue("256")
+		int bufferSize,
+		
+		@DefaultValue("DROP_OLDEST")
+		Overflow overflow,
+		
+		@DefaultValue("30s")
+		Duration gracePeriod
+		
+		) {
+	
+	public enum Overflow {
+		DROP_OLDEST,
+		DROP_LATEST,
+		LATEST
+	}
+
+}
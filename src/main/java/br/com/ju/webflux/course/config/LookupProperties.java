@@ -0,0 +1,35 @@
+package br.com.ju.webflux.course.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "users.lookup")
+public record LookupProperties(
+		
+		@DefaultValue("1000")
+		int maxIds,
+		
+		@DefaultValue
+		Coalescing coalescing
+		
+		) {
+	
+	public record Coalescing(
+			
+			@DefaultValue("false")
+			boolean enabled,
+			
+			@DefaultValue("2ms")
+			Duration window,
+			
+			@DefaultValue("128")
+			int maxBatchSize,
+			
+			@DefaultValue("16")
+			int maxInFlight
+			
+			) {}
+
+}
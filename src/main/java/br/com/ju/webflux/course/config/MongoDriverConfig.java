@@ -0,0 +1,60 @@
+package br.com.ju.webflux.course.config;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import br.com.ju.webflux.course.metrics.MongoPoolMetrics;
+
+/**
+ * Applies {@link MongoDriverProperties} to the client Spring Boot builds and
+ * attaches the checkout meters of {@link MongoPoolMetrics}.
+ */
+@Configuration
+@Profile("!embedded")
+public class MongoDriverConfig {
+
+	@Bean
+	public MongoClientSettingsBuilderCustomizer mongoDriverCustomizer(final MongoDriverProperties properties,
+			final MongoPoolMetrics poolMetrics) {
+		MongoDriverProperties.Pool pool = properties.pool();
+		MongoDriverProperties.Socket socket = properties.socket();
+		return builder -> {
+			builder.applyToConnectionPoolSettings(settings -> {
+				if (pool.maxSize() != null) {
+					settings.maxSize(pool.maxSize());
+				}
+				if (pool.minSize() != null) {
+					settings.minSize(pool.minSize());
+				}
+				if (pool.maxConnecting() != null) {
+					settings.maxConnecting(pool.maxConnecting());
+				}
+				if (pool.maxWaitTime() != null) {
+					settings.maxWaitTime(pool.maxWaitTime().toMillis(), MILLISECONDS);
+				}
+				if (pool.maxConnectionIdleTime() != null) {
+					settings.maxConnectionIdleTime(pool.maxConnectionIdleTime().toMillis(), MILLISECONDS);
+				}
+				settings.addConnectionPoolListener(poolMetrics);
+			});
+			builder.applyToSocketSettings(settings -> {
+				if (socket.connectTimeout() != null) {
+					settings.connectTimeout((int) socket.connectTimeout().toMillis(), MILLISECONDS);
+				}
+				if (socket.readTimeout() != null) {
+					settings.readTimeout((int) socket.readTimeout().toMillis(), MILLISECONDS);
+				}
+			});
+			if (properties.compressors() != null) {
+				builder.compressorList(properties.compressors().stream()
+						.map(MongoDriverProperties.Compressor::create)
+						.toList());
+			}
+		};
+	}
+
+}
@@ -0,0 +1,75 @@
+package br.com.ju.webflux.course.config;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import com.mongodb.MongoCompressor;
+
+/**
+ * MongoDB driver settings, applied over the options of the connection string.
+ * Only the settings that are set are applied; the others keep the value from
+ * the connection string, or the driver's default. Since driver 4.0 the wait
+ * queue has no size limit: a checkout waits at most {@code pool.maxWaitTime},
+ * and at most {@code pool.maxConnecting} connections are opened at once.
+ * Compressors are offered in order and the first one the server supports is
+ * used. {@code cursorBatchSize} is the batch size of full-collection reads.
+ */
+@ConfigurationProperties(prefix = "users.mongo")
+public record MongoDriverProperties(
+
+		@DefaultValue
+		Pool pool,
+
+		@DefaultValue
+		Socket socket,
+
+		List<Compressor> compressors,
+
+		@DefaultValue("1000")
+		int cursorBatchSize
+
+		) {
+
+	public record Pool(
+
+			Integer maxSize,
+
+			Integer minSize,
+
+			Integer maxConnecting,
+
+			Duration maxWaitTime,
+
+			Duration maxConnectionIdleTime
+
+			) {}
+
+	/**
+	 * A zero {@code readTimeout} never times out a socket read.
+	 */
+	public record Socket(
+
+			Duration connectTimeout,
+
+			Duration readTimeout
+
+			) {}
+
+	public enum Compressor {
+		ZSTD,
+		SNAPPY,
+		ZLIB;
+
+		public MongoCompressor create() {
+			return switch (this) {
+				case ZSTD -> MongoCompressor.createZstdCompressor();
+				case SNAPPY -> MongoCompressor.createSnappyCompressor();
+				case ZLIB -> MongoCompressor.createZlibCompressor();
+			};
+		}
+	}
+
+}
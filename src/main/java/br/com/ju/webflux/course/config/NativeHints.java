@@ -0,0 +1,69 @@
+package br.com.ju.webflux.course.config;
+
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+import br.com.ju.webflux.course.controller.exceptions.StandardError;
+import br.com.ju.webflux.course.controller.exceptions.ValidationError;
+import br.com.ju.webflux.course.entity.User;
+import br.com.ju.webflux.course.entity.UserChange;
+import br.com.ju.webflux.course.model.request.SearchCursor;
+import br.com.ju.webflux.course.model.request.UserRequest;
+import br.com.ju.webflux.course.model.request.UserUpdateRequest;
+import br.com.ju.webflux.course.model.response.EmailDomainCount;
+import br.com.ju.webflux.course.model.response.UserBatchResponse;
+import br.com.ju.webflux.course.model.response.UserCountResponse;
+import br.com.ju.webflux.course.model.response.UserEventResponse;
+import br.com.ju.webflux.course.model.response.UserPageResponse;
+import br.com.ju.webflux.course.model.response.UserResponse;
+import br.com.ju.webflux.course.model.response.UserStatsResponse;
+
+/**
+ * Reflection hints for a native image. Spring AOT registers the beans, the
+ * MapStruct mapper among them, and the types of controller signatures it can
+ * see; the types Jackson reaches some other way, such as error bodies, event
+ * payloads and nested records, are listed here. Spring Data instantiates
+ * {@link User} through its Lombok constructor and builder, so their members
+ * are kept as well.
+ */
+@Configuration
+@ImportRuntimeHints(NativeHints.Registrar.class)
+@RegisterReflectionForBinding({
+	UserRequest.class,
+	UserUpdateRequest.class,
+	SearchCursor.class,
+	UserResponse.class,
+	UserPageResponse.class,
+	UserBatchResponse.class,
+	UserCountResponse.class,
+	UserStatsResponse.class,
+	EmailDomainCount.class,
+	UserEventResponse.class,
+	UserChange.class,
+	StandardError.class,
+	ValidationError.class
+})
+public class NativeHints {
+
+	static class Registrar implements RuntimeHintsRegistrar {
+
+		@Override
+		public void registerHints(final RuntimeHints hints, final ClassLoader classLoader) {
+			hints.reflection()
+			.registerType(User.class, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+					MemberCategory.INVOKE_PUBLIC_METHODS, MemberCategory.DECLARED_FIELDS)
+			.registerType(User.UserBuilder.class, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+					MemberCategory.INVOKE_PUBLIC_METHODS)
+			.registerType(TypeReference.of(ValidationError.class.getName() + "$FieldError"),
+					MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS,
+					MemberCategory.DECLARED_FIELDS);
+		}
+
+	}
+
+}
@@ -0,0 +1,27 @@
+package br.com.ju.webflux.course.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "users.pagination")
+public record PaginationProperties(
+		
+		@DefaultValue("20")
+		int defaultLimit,
+		
+		@DefaultValue("500")
+		int maxLimit,
+		
+		@DefaultValue("256")
+		int streamBatchSize
+		
+		) {
+	
+	public int limit(final Integer requested) {
+		if (requested == null || requested < 1) {
+			return defaultLimit;
+		}
+		return Math.min(requested, maxLimit);
+	}
+
+}
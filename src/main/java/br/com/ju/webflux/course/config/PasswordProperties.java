@@ -0,0 +1,28 @@
+package br.com.ju.webflux.course.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * BCrypt settings. A {@code concurrency} of zero sizes the hashing pool to the
+ * number of available processors.
+ */
+@ConfigurationProperties(prefix = "users.password")
+public record PasswordProperties(
+		
+		@DefaultValue("10")
+		int strength,
+		
+		@DefaultValue("0")
+		int concurrency,
+		
+		@DefaultValue("10000")
+		int queueCapacity
+		
+		) {
+	
+	public int threads() {
+		return concurrency > 0 ? concurrency : Runtime.getRuntime().availableProcessors();
+	}
+
+}
@@ -0,0 +1,71 @@
+package br.com.ju.webflux.course.config;
+
+import java.time.Duration;
+import java.util.Set;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Admission control for {@code /users}. Each client, identified by its remote
+ * address, gets a token bucket of {@code capacity} requests refilled at
+ * {@code refillPerSecond}. Only requests relayed by one of the
+ * {@code trustedProxies} addresses are identified by {@code clientHeader}
+ * instead, since any other caller could set it to whatever it likes. Idle buckets
+ * are dropped after {@code idleTimeout}. Bulkheads cap how many long-running
+ * requests of each kind are in flight across all clients. Off by default, so
+ * that load tests and local runs, which all come from one address, measure the
+ * service rather than the limiter.
+ */
+@ConfigurationProperties(prefix = "users.rate-limit")
+public record RateLimitProperties(
+
+		@DefaultValue("false")
+		boolean enabled,
+
+		@DefaultValue("100")
+		int capacity,
+
+		@DefaultValue("50")
+		int refillPerSecond,
+
+		@DefaultValue("X-Client-Id")
+		String clientHeader,
+
+		@DefaultValue
+		Set<String> trustedProxies,
+
+		@DefaultValue("100000")
+		long maxClients,
+
+		@DefaultValue("10m")
+		Duration idleTimeout,
+
+		@DefaultValue
+		Bulkheads bulkheads
+
+		) {
+
+	public RateLimitProperties {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("users.rate-limit.capacity must be positive");
+		}
+		if (refillPerSecond <= 0) {
+			throw new IllegalArgumentException("users.rate-limit.refill-per-second must be positive");
+		}
+	}
+
+	public record Bulkheads(
+
+			@DefaultValue("64")
+			int list,
+
+			@DefaultValue("16")
+			int batch,
+
+			@DefaultValue("256")
+			int events
+
+			) {}
+
+}
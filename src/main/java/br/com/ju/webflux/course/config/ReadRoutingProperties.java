@@ -0,0 +1,40 @@
+package br.com.ju.webflux.course.config;
+
+import java.time.Duration;
+import java.util.Set;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Read routing of the Mongo user repository. When {@code enabled}, the
+ * repository operations listed in {@code secondaryReads} read from a secondary
+ * no further than {@code maxStaleness} behind the primary (90 seconds at
+ * least), falling back to the primary when none qualifies. Every other
+ * operation, and every write, stays on the primary. Writes made on behalf of
+ * a request also hand back a consistency token, and {@code findById} calls
+ * that carry one read at or after that point.
+ * <p>
+ * {@code findById} is left off the default list: its results fill the user
+ * cache and supply the versions that conditional writes compare, so a stale
+ * secondary read would be cached and turn later writes into spurious 412s.
+ */
+@ConfigurationProperties(prefix = "users.read-routing")
+public record ReadRoutingProperties(
+		
+		@DefaultValue("false")
+		boolean enabled,
+		
+		@DefaultValue("90s")
+		Duration maxStaleness,
+		
+		@DefaultValue({"findAll", "findPage", "search", "stream", "count", "countByEmailDomain", "findAllEmails"})
+		Set<String> secondaryReads
+		
+		) {
+	
+	public boolean secondary(final String operation) {
+		return enabled && secondaryReads.contains(operation);
+	}
+	
+}
@@ -0,0 +1,21 @@
+package br.com.ju.webflux.course.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Server-side statistics. Results are reused for {@code refreshInterval};
+ * zero disables the caching.
+ */
+@ConfigurationProperties(prefix = "users.stats")
+public record StatsProperties(
+		
+		@DefaultValue("10s")
+		Duration refreshInterval,
+		
+		@DefaultValue("20")
+		int topEmailDomains
+		
+		) {}
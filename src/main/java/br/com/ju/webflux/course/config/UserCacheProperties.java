@@ -0,0 +1,17 @@
+package br.com.ju.webflux.course.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "users.cache")
+public record UserCacheProperties(
+		
+		@DefaultValue("10000")
+		long maximumSize,
+		
+		@DefaultValue("5m")
+		Duration expireAfterWrite
+		
+		) {}
@@ -0,0 +1,57 @@
+package br.com.ju.webflux.course.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.Errors;
+import org.springframework.validation.SmartValidator;
+import org.springframework.validation.Validator;
+import org.springframework.validation.beanvalidation.SpringValidatorAdapter;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+
+import br.com.ju.webflux.course.metrics.UserMetrics;
+
+/**
+ * Times the {@code @Valid} checks of request bodies as {@code users.validation},
+ * tagged with the validated type, so validation shows up apart from the
+ * codec and the service. Batch items validated by the service use the same
+ * timer.
+ */
+@Configuration
+public class ValidationConfig implements WebFluxConfigurer {
+	
+	private final SpringValidatorAdapter validator;
+	private final UserMetrics metrics;
+	
+	public ValidationConfig(final SpringValidatorAdapter validator, final UserMetrics metrics) {
+		this.validator = validator;
+		this.metrics = metrics;
+	}
+	
+	@Override
+	public Validator getValidator() {
+		return new SmartValidator() {
+			
+			@Override
+			public boolean supports(final Class<?> type) {
+				return validator.supports(type);
+			}
+			
+			@Override
+			public void validate(final Object target, final Errors errors) {
+				metrics.validating(target.getClass(), () -> {
+					validator.validate(target, errors);
+					return errors;
+				});
+			}
+			
+			@Override
+			public void validate(final Object target, final Errors errors, final Object... hints) {
+				metrics.validating(target.getClass(), () -> {
+					validator.validate(target, errors, hints);
+					return errors;
+				});
+			}
+			
+		};
+	}
+
+}
@@ -0,0 +1,49 @@
+package br.com.ju.webflux.course.config;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Write-behind user creation. When enabled, new users are acknowledged once
+ * they are in the local {@code journal}. Appends arriving within
+ * {@code commitWindow}, up to {@code maxCommitSize}, share one fsync. A
+ * background drain inserts up to {@code drainBatchSize} journaled users every
+ * {@code drainInterval}, retrying a failed insert {@code maxRetries} times
+ * from {@code retryBackoff} before leaving it for the next round. On shutdown,
+ * groups already accepted get up to {@code shutdownTimeout} to be journaled
+ * and answered.
+ */
+@ConfigurationProperties(prefix = "users.write-behind")
+public record WriteBehindProperties(
+		
+		@DefaultValue("false")
+		boolean enabled,
+		
+		@DefaultValue("users-journal.log")
+		Path journal,
+		
+		@DefaultValue("2ms")
+		Duration commitWindow,
+		
+		@DefaultValue("256")
+		int maxCommitSize,
+		
+		@DefaultValue("500")
+		int drainBatchSize,
+		
+		@DefaultValue("100ms")
+		Duration drainInterval,
+		
+		@DefaultValue("3")
+		int maxRetries,
+		
+		@DefaultValue("200ms")
+		Duration retryBackoff,
+		
+		@DefaultValue("10s")
+		Duration shutdownTimeout
+		
+		) {}
@@ -1,6 +1,17 @@
 package br.com.ju.webflux.course.controller;
 
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON_VALUE;
+import static org.springframework.http.MediaType.TEXT_EVENT_STREAM_VALUE;
+
+import static org.springframework.http.HttpHeaders.IF_MATCH;
+import static org.springframework.http.HttpHeaders.IF_NONE_MATCH;
+
+import java.util.List;
+
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.stereotype.Component;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -8,9 +19,19 @@ import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 
 import br.com.ju.webflux.course.model.request.UserRequest;
+import br.com.ju.webflux.course.model.request.UserUpdateRequest;
+import br.com.ju.webflux.course.model.response.UserBatchResponse;
+import br.com.ju.webflux.course.model.response.UserCountResponse;
+import br.com.ju.webflux.course.model.response.UserEventResponse;
+import br.com.ju.webflux.course.model.response.UserPageResponse;
 import br.com.ju.webflux.course.model.response.UserResponse;
+import br.com.ju.webflux.course.model.response.UserStatsResponse;
 import jakarta.validation.Valid;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -21,16 +42,79 @@ public interface UserController {
 	@PostMapping
 	ResponseEntity<Mono<Void>> save(@Valid @RequestBody UserRequest request);
 	
+	@PostMapping(
+			value = "/batch",
+			consumes = { APPLICATION_JSON_VALUE, APPLICATION_NDJSON_VALUE },
+			produces = APPLICATION_NDJSON_VALUE)
+	ResponseEntity<Flux<UserBatchResponse>> saveAll(@RequestBody Flux<UserRequest> requests);
+	
 	@GetMapping(value = "/{id}")
-	ResponseEntity<Mono<UserResponse>> findById(@PathVariable String id);
+	Mono<ResponseEntity<?>> findById(
+			@PathVariable String id,
+			@RequestHeader(value = IF_NONE_MATCH, required = false) String ifNoneMatch,
+			ServerHttpRequest request);
+	
+	@PostMapping(value = "/lookup")
+	ResponseEntity<Flux<UserResponse>> findAllById(@RequestBody List<String> ids);
 	
 	@GetMapping
 	ResponseEntity<Flux<UserResponse>> findAll();
 	
+	@GetMapping(value = "/page")
+	ResponseEntity<Mono<UserPageResponse>> findPage(
+			@RequestParam(required = false) String after, @RequestParam(required = false) Integer limit);
+	
+	@GetMapping(value = "/search")
+	ResponseEntity<Mono<UserPageResponse>> search(
+			@RequestParam String q,
+			@RequestParam(defaultValue = "name") String field,
+			@RequestParam(required = false) String after,
+			@RequestParam(required = false) Integer limit);
+	
+	@GetMapping(produces = APPLICATION_NDJSON_VALUE)
+	ResponseEntity<Flux<UserResponse>> stream();
+	
+	@GetMapping(value = "/count")
+	ResponseEntity<Mono<UserCountResponse>> count();
+	
+	@GetMapping(value = "/stats")
+	ResponseEntity<Mono<UserStatsResponse>> stats();
+	
+	@GetMapping(value = "/events", produces = TEXT_EVENT_STREAM_VALUE)
+	ResponseEntity<Flux<ServerSentEvent<UserEventResponse>>> events(
+			@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId);
+	
+	@GetMapping(value = "/events", produces = APPLICATION_NDJSON_VALUE)
+	ResponseEntity<Flux<UserEventResponse>> eventStream(@RequestParam(required = false) String resumeAfter);
+	
 	@PatchMapping(value = "/{id}")
-	ResponseEntity<Mono<UserResponse>> update(@PathVariable String id, @RequestBody UserRequest request);
+	Mono<ResponseEntity<UserResponse>> update(
+			@PathVariable String id,
+			@RequestBody UserRequest request,
+			@RequestHeader(value = IF_MATCH, required = false) String ifMatch);
+	
+	@PatchMapping(
+			value = "/batch",
+			consumes = { APPLICATION_JSON_VALUE, APPLICATION_NDJSON_VALUE },
+			produces = APPLICATION_NDJSON_VALUE)
+	ResponseEntity<Flux<UserBatchResponse>> updateAll(@RequestBody Flux<UserUpdateRequest> requests);
+	
+	@DeleteMapping(
+			value = "/batch",
+			consumes = { APPLICATION_JSON_VALUE, APPLICATION_NDJSON_VALUE },
+			produces = APPLICATION_NDJSON_VALUE)
+	ResponseEntity<Flux<UserBatchResponse>> deleteAll(@RequestBody Flux<String> ids);
+	
+	/**
+	 * Answers 415 to batch updates and deletes in any other format, which would
+	 * otherwise fall through to the single-user mappings with the id "batch".
+	 */
+	@RequestMapping(value = "/batch", method = { RequestMethod.PATCH, RequestMethod.DELETE })
+	Mono<Void> unsupportedBatch(ServerHttpRequest request);
 	
 	@DeleteMapping(value = "/{id}")
-	ResponseEntity<Mono<Void>> delete(@PathVariable String id);
+	ResponseEntity<Mono<Void>> delete(
+			@PathVariable String id,
+			@RequestHeader(value = IF_MATCH, required = false) String ifMatch);
 	
 }
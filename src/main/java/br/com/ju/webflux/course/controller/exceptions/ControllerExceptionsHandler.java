@@ -1,49 +1,58 @@
 package br.com.ju.webflux.course.controller.exceptions;
 
 import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.support.WebExchangeBindException;
 
+import br.com.ju.webflux.course.metrics.UserMetrics;
 import br.com.ju.webflux.course.service.exception.ObjectNotFoundException;
+import lombok.RequiredArgsConstructor;
 
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.validation.FieldError;
 
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 import static java.time.LocalDateTime.now;
 import static org.springframework.http.HttpStatus.BAD_REQUEST;
+import static org.springframework.http.HttpStatus.PRECONDITION_FAILED;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
 
 @ControllerAdvice
+@RequiredArgsConstructor
 public class ControllerExceptionsHandler {
 	
+	private static final String DUPLICATE_EMAIL = "E-mail already registered";
+	private static final String VALIDATION_ERROR = "Validation Error";
+	private static final String VALIDATION_MESSAGE = "Error on validation attributes";
+	
+	private final UserMetrics metrics;
+	
 	@ExceptionHandler(DuplicateKeyException.class)
 	public ResponseEntity<Mono<StandardError>> duplicateKeyException(
 			DuplicateKeyException ex, ServerHttpRequest request
 			){
+		metrics.error(ex.getClass(), BAD_REQUEST.value());
 		return ResponseEntity.badRequest()
-				.body(Mono.just(
-						StandardError.builder()
-						.timestamp(now())
-						.path(request.getPath().toString())
-						.status(BAD_REQUEST.value())
-						.error(BAD_REQUEST.getReasonPhrase())
-						.message("E-mail already registered")
-						.build()
-						));
+				.body(Mono.just(StandardError.of(BAD_REQUEST, request.getPath().toString(), DUPLICATE_EMAIL)));
 	}
 	
 	@ExceptionHandler(WebExchangeBindException.class)
 	public ResponseEntity<Mono<ValidationError>> validationError(
 			WebExchangeBindException ex, ServerHttpRequest request
 			){
+		metrics.error(ex.getClass(), BAD_REQUEST.value());
+		List<FieldError> fieldErrors = ex.getBindingResult().getFieldErrors();
 		ValidationError error = new ValidationError(
-				now(), request.getPath().toString(), BAD_REQUEST.value(), "Validation Error", "Error on validation attributes");
+				now(), request.getPath().toString(), BAD_REQUEST.value(), VALIDATION_ERROR, VALIDATION_MESSAGE,
+				fieldErrors.size());
 		
-		for(FieldError x : ex.getBindingResult().getFieldErrors()) {
+		for(FieldError x : fieldErrors) {
 			error.addError(x.getField(), x.getDefaultMessage());
 		}
 		
@@ -54,16 +63,18 @@ public class ControllerExceptionsHandler {
 	public ResponseEntity<Mono<StandardError>> objectNotFoundException(
 			ObjectNotFoundException ex, ServerHttpRequest request
 			){
+		metrics.error(ex.getClass(), NOT_FOUND.value());
 		return ResponseEntity.status(NOT_FOUND)
-				.body(Mono.just(
-						StandardError.builder()
-						.timestamp(now())
-						.status(NOT_FOUND.value())
-						.error(NOT_FOUND.getReasonPhrase())
-						.message(ex.getMessage())
-						.path(request.getPath().toString())
-						.build()
-						));
+				.body(Mono.just(StandardError.of(NOT_FOUND, request.getPath().toString(), ex.getMessage())));
+	}
+	
+	@ExceptionHandler(OptimisticLockingFailureException.class)
+	public ResponseEntity<Mono<StandardError>> optimisticLockingFailureException(
+			OptimisticLockingFailureException ex, ServerHttpRequest request
+			){
+		metrics.error(ex.getClass(), PRECONDITION_FAILED.value());
+		return ResponseEntity.status(PRECONDITION_FAILED)
+				.body(Mono.just(StandardError.of(PRECONDITION_FAILED, request.getPath().toString(), ex.getMessage())));
 	}
 
 }
@@ -1,9 +1,13 @@
 package br.com.ju.webflux.course.controller.exceptions;
 
+import static java.time.LocalDateTime.now;
+
 import java.io.Serial;
 import java.io.Serializable;
 import java.time.LocalDateTime;
 
+import org.springframework.http.HttpStatus;
+
 import lombok.Builder;
 import lombok.Data;
 import lombok.Generated;
@@ -21,5 +25,15 @@ public class StandardError implements Serializable{
 	private Integer status;
 	private String error;
 	private String message;
+	
+	public static StandardError of(final HttpStatus status, final String path, final String message) {
+		return StandardError.builder()
+				.timestamp(now())
+				.path(path)
+				.status(status.value())
+				.error(status.getReasonPhrase())
+				.message(message)
+				.build();
+	}
 
 }
@@ -14,10 +14,11 @@ public class ValidationError extends StandardError {
 	@Serial
 	private static final long serialVersionUID = 1L;
 	
-	private final List<FieldError> errors = new ArrayList<>();
+	private final List<FieldError> errors;
 
-	ValidationError(LocalDateTime timestamp, String path, Integer status, String error, String message) {
+	ValidationError(LocalDateTime timestamp, String path, Integer status, String error, String message, int expectedErrors) {
 		super(timestamp, path, status, error, message);
+		this.errors = new ArrayList<>(expectedErrors);
 	}
 	
 	public void addError(String fieldName, String message) {
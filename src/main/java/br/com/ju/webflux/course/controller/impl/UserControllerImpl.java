@@ -1,15 +1,43 @@
 package br.com.ju.webflux.course.controller.impl;
 
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.function.Function;
+
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebInputException;
+import org.springframework.web.server.UnsupportedMediaTypeStatusException;
 
+import br.com.ju.webflux.course.config.BatchProperties;
+import br.com.ju.webflux.course.config.LookupProperties;
+import br.com.ju.webflux.course.config.PaginationProperties;
 import br.com.ju.webflux.course.controller.UserController;
+import br.com.ju.webflux.course.controller.exceptions.StandardError;
+import br.com.ju.webflux.course.entity.User;
+import br.com.ju.webflux.course.entity.UserChange;
 import br.com.ju.webflux.course.mapper.UserMapper;
+import br.com.ju.webflux.course.metrics.UserMetrics;
+import br.com.ju.webflux.course.model.request.SearchCursor;
+import br.com.ju.webflux.course.model.request.SearchField;
 import br.com.ju.webflux.course.model.request.UserRequest;
+import br.com.ju.webflux.course.model.request.UserUpdateRequest;
+import br.com.ju.webflux.course.model.response.UserBatchResponse;
+import br.com.ju.webflux.course.model.response.UserCountResponse;
+import br.com.ju.webflux.course.model.response.UserEventResponse;
+import br.com.ju.webflux.course.model.response.UserPageResponse;
 import br.com.ju.webflux.course.model.response.UserResponse;
+import br.com.ju.webflux.course.model.response.UserStatsResponse;
+import br.com.ju.webflux.course.service.UserEventService;
 import br.com.ju.webflux.course.service.UserService;
+import br.com.ju.webflux.course.service.UserStatsService;
+import br.com.ju.webflux.course.service.exception.ObjectNotFoundException;
 import lombok.RequiredArgsConstructor;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -19,36 +47,247 @@ import reactor.core.publisher.Mono;
 @RequestMapping(value = "/users")
 public class UserControllerImpl implements UserController{
 	
+	/**
+	 * Expected version that never matches, since versions start at 0.
+	 */
+	private static final Long NO_VERSION = -1L;
+	
 	private final UserService service;
+	private final UserEventService events;
+	private final UserStatsService stats;
 	private final UserMapper mapper;
+	private final PaginationProperties pagination;
+	private final BatchProperties batch;
+	private final LookupProperties lookup;
+	private final UserMetrics metrics;
 
 	@Override
 	public ResponseEntity<Mono<Void>> save(final UserRequest request) {
-		return ResponseEntity.status(HttpStatus.CREATED).body(service.save(request).then());
+		return ResponseEntity.status(service.isWriteBehind() ? HttpStatus.ACCEPTED : HttpStatus.CREATED)
+				.body(service.save(request).then());
+	}
+
+	@Override
+	public ResponseEntity<Flux<UserBatchResponse>> saveAll(final Flux<UserRequest> requests) {
+		return ResponseEntity.ok().body(service.saveAll(requests, batch.chunkSize()));
+	}
+
+	@Override
+	public Mono<ResponseEntity<?>> findById(String id, String ifNoneMatch, ServerHttpRequest request) {
+		return service.findById(id)
+				.<ResponseEntity<?>>map(user -> {
+					String etag = etag(user);
+					if (etag != null && matches(ifNoneMatch, etag)) {
+						return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+					}
+					return withETag(ResponseEntity.ok(), etag).body(toResponse(user));
+				})
+				.switchIfEmpty(Mono.fromSupplier(() -> notFound(id, request)));
 	}
 
 	@Override
-	public ResponseEntity<Mono<UserResponse>> findById(String id) {
+	public ResponseEntity<Flux<UserResponse>> findAllById(List<String> ids) {
+		if (ids.size() > lookup.maxIds()) {
+			throw new ServerWebInputException("At most " + lookup.maxIds() + " ids can be looked up at once");
+		}
 		return ResponseEntity.ok().body(
-				service.findById(id).map(mapper::toResponse));
+				service.findAllById(new LinkedHashSet<>(ids)).map(this::toResponse));
 	}
 
 	@Override
 	public ResponseEntity<Flux<UserResponse>> findAll() {
 		return ResponseEntity.ok().body(
-				service.findAll().map(mapper::toResponse));
+				service.findAll().map(this::toResponse));
+	}
+
+	@Override
+	public ResponseEntity<Mono<UserPageResponse>> findPage(String after, Integer limit) {
+		final int size = pagination.limit(limit);
+		return ResponseEntity.ok().body(
+				service.findPage(after, size)
+				.map(this::toResponse)
+				.collectList()
+				.map(content -> UserPageResponse.of(content, size)));
+	}
+
+	@Override
+	public ResponseEntity<Mono<UserPageResponse>> search(String q, String field, String after, Integer limit) {
+		final SearchField searchField = SearchField.of(field);
+		if (searchField == null) {
+			throw new ServerWebInputException("field must be one of name, email");
+		}
+		if (q.isBlank()) {
+			throw new ServerWebInputException("q must not be blank");
+		}
+		final int size = pagination.limit(limit);
+		return ResponseEntity.ok().body(
+				service.search(searchField, q, cursor(after), size)
+				.collectList()
+				.map(users -> {
+					String next = null;
+					if (users.size() == size) {
+						User last = users.get(users.size() - 1);
+						next = new SearchCursor(searchField.valueOf(last), last.getId()).encode();
+					}
+					return new UserPageResponse(users.stream().map(this::toResponse).toList(), next);
+				}));
 	}
 
 	@Override
-	public ResponseEntity<Mono<UserResponse>> update(String id, UserRequest request) {
+	public ResponseEntity<Flux<UserResponse>> stream() {
 		return ResponseEntity.ok().body(
-				service.update(id, request).map(mapper::toResponse));
+				service.stream(pagination.streamBatchSize()).map(this::toResponse));
+	}
+
+	@Override
+	public ResponseEntity<Mono<UserCountResponse>> count() {
+		return ResponseEntity.ok().body(stats.count().map(UserCountResponse::new));
 	}
 
 	@Override
-	public ResponseEntity<Mono<Void>> delete(String id) {
+	public ResponseEntity<Mono<UserStatsResponse>> stats() {
+		return ResponseEntity.ok().body(stats.stats());
+	}
+
+	@Override
+	public ResponseEntity<Flux<ServerSentEvent<UserEventResponse>>> events(String lastEventId) {
 		return ResponseEntity.ok().body(
-				service.delete(id).then());
+				events.changes(lastEventId)
+				.map(this::toEvent)
+				.map(event -> ServerSentEvent.builder(event)
+						.id(event.resumeToken())
+						.event(event.type().name())
+						.build()));
+	}
+
+	@Override
+	public ResponseEntity<Flux<UserEventResponse>> eventStream(String resumeAfter) {
+		return ResponseEntity.ok().body(
+				events.changes(resumeAfter).map(this::toEvent));
+	}
+
+	@Override
+	public Mono<ResponseEntity<UserResponse>> update(String id, UserRequest request, String ifMatch) {
+		return conditionally(id, ifMatch, version -> service.update(id, request, version))
+				.map(user -> withETag(ResponseEntity.ok(), etag(user)).body(toResponse(user)));
+	}
+
+	@Override
+	public ResponseEntity<Flux<UserBatchResponse>> updateAll(final Flux<UserUpdateRequest> requests) {
+		return ResponseEntity.ok().body(service.updateAll(requests, batch.chunkSize(), batch.maxInFlight()));
+	}
+
+	@Override
+	public ResponseEntity<Flux<UserBatchResponse>> deleteAll(final Flux<String> ids) {
+		return ResponseEntity.ok().body(service.deleteAll(ids, batch.chunkSize(), batch.maxInFlight()));
+	}
+
+	@Override
+	public Mono<Void> unsupportedBatch(ServerHttpRequest request) {
+		return Mono.error(new UnsupportedMediaTypeStatusException(request.getHeaders().getContentType(),
+				List.of(MediaType.APPLICATION_JSON, MediaType.APPLICATION_NDJSON), request.getMethod()));
+	}
+
+	@Override
+	public ResponseEntity<Mono<Void>> delete(String id, String ifMatch) {
+		return ResponseEntity.ok().body(conditionally(id, ifMatch, version -> service.delete(id, version)));
+	}
+
+	/**
+	 * Builds the same 404 body as the exception handler without raising an
+	 * exception for a missing user.
+	 */
+	private ResponseEntity<StandardError> notFound(final String id, final ServerHttpRequest request) {
+		metrics.error(ObjectNotFoundException.class, HttpStatus.NOT_FOUND.value());
+		return ResponseEntity.status(HttpStatus.NOT_FOUND)
+				.body(StandardError.of(HttpStatus.NOT_FOUND, request.getPath().toString(),
+						ObjectNotFoundException.message(id, User.class)));
+	}
+
+	private UserResponse toResponse(final User user) {
+		return metrics.mapping("toResponse", () -> mapper.toResponse(user));
+	}
+
+	private UserEventResponse toEvent(final UserChange change) {
+		return new UserEventResponse(change.resumeToken(), change.type(), change.id(),
+				change.user() == null ? null : toResponse(change.user()));
+	}
+
+	private static SearchCursor cursor(final String after) {
+		if (after == null || after.isBlank()) {
+			return null;
+		}
+		try {
+			return SearchCursor.decode(after);
+		} catch (IllegalArgumentException ex) {
+			throw new ServerWebInputException("Invalid search cursor");
+		}
+	}
+
+	/**
+	 * Strong entity tag of a user: its quoted document version.
+	 */
+	private static String etag(final User user) {
+		return user.getVersion() == null ? null : "\"" + user.getVersion() + "\"";
+	}
+
+	private static ResponseEntity.BodyBuilder withETag(final ResponseEntity.BodyBuilder builder, final String etag) {
+		return etag == null ? builder : builder.eTag(etag);
+	}
+
+	private static boolean matches(final String ifNoneMatch, final String etag) {
+		if (ifNoneMatch == null) {
+			return false;
+		}
+		for (String candidate : ifNoneMatch.split(",")) {
+			String tag = candidate.trim();
+			if (tag.startsWith("W/")) {
+				tag = tag.substring(2);
+			}
+			if (tag.equals("*") || tag.equals(etag)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Runs a write under the {@code If-Match} precondition. Without the header,
+	 * or with {@code *}, the write is unconditional. If-Match compares strongly,
+	 * so weak and malformed tags never match: with no strong tag left the write
+	 * expects a version no user has and is answered with 412, or 404 when the
+	 * user is missing. A single tag is the expected version; from a list, the
+	 * user's current version is expected when it is listed.
+	 */
+	private <T> Mono<T> conditionally(final String id, final String ifMatch, final Function<Long, Mono<T>> write) {
+		if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+			return write.apply(null);
+		}
+		final List<Long> versions = strongVersions(ifMatch);
+		if (versions.size() <= 1) {
+			return write.apply(versions.isEmpty() ? NO_VERSION : versions.get(0));
+		}
+		return service.findById(id)
+				.map(User::getVersion)
+				.filter(versions::contains)
+				.defaultIfEmpty(NO_VERSION)
+				.flatMap(write);
+	}
+
+	private static List<Long> strongVersions(final String ifMatch) {
+		final List<Long> versions = new ArrayList<>(2);
+		for (String candidate : ifMatch.split(",")) {
+			String tag = candidate.trim();
+			if (tag.length() < 3 || tag.charAt(0) != '"' || tag.charAt(tag.length() - 1) != '"') {
+				continue;
+			}
+			try {
+				versions.add(Long.valueOf(tag.substring(1, tag.length() - 1)));
+			} catch (NumberFormatException ex) {
+				continue;
+			}
+		}
+		return versions;
 	}
 
 }
@@ -1,6 +1,11 @@
 package br.com.ju.webflux.course.entity;
 
+import java.time.Instant;
+
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
@@ -11,6 +16,10 @@ import lombok.Generated;
 @Data
 @Builder
 @Document
+@CompoundIndexes({
+	@CompoundIndex(name = "name_id", def = "{'name': 1, '_id': 1}"),
+	@CompoundIndex(name = "email_id", def = "{'email': 1, '_id': 1}")
+})
 @Generated
 public class User {
 	
@@ -20,5 +29,9 @@ public class User {
 	@Indexed(unique = true)
 	private String email;
 	private String password;
+	@Version
+	private Long version;
+	@Indexed(name = "deletedAt_ttl", expireAfter = "30d")
+	private Instant deletedAt;
 	
 }
@@ -0,0 +1,18 @@
+package br.com.ju.webflux.course.entity;
+
+public record UserChange(
+		
+		String resumeToken,
+		Type type,
+		String id,
+		User user
+		
+		) {
+	
+	public enum Type {
+		CREATED,
+		UPDATED,
+		DELETED
+	}
+
+}
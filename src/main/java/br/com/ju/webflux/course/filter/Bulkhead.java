@@ -0,0 +1,38 @@
+package br.com.ju.webflux.course.filter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Caps the number of concurrent requests of one kind. Permits are taken with
+ * a CAS loop and never block.
+ */
+class Bulkhead {
+
+	private final int limit;
+	private final AtomicInteger active = new AtomicInteger();
+
+	Bulkhead(final int limit) {
+		this.limit = limit;
+	}
+
+	boolean tryAcquire() {
+		while (true) {
+			int current = active.get();
+			if (current >= limit) {
+				return false;
+			}
+			if (active.compareAndSet(current, current + 1)) {
+				return true;
+			}
+		}
+	}
+
+	void release() {
+		active.decrementAndGet();
+	}
+
+	int active() {
+		return active.get();
+	}
+
+}
@@ -0,0 +1,46 @@
+package br.com.ju.webflux.course.filter;
+
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+
+import br.com.ju.webflux.course.config.ReadRoutingProperties;
+import br.com.ju.webflux.course.repository.ConsistencyToken;
+import reactor.core.publisher.Mono;
+
+/**
+ * Puts a {@link ConsistencyToken} read from the request into the Reactor
+ * context of {@code /users} requests while read routing is enabled, and sends
+ * it back in the same header when the request's writes advanced it.
+ */
+@Component
+public class ConsistencyTokenFilter implements WebFilter {
+
+	private static final String PATH = "/users";
+
+	private final ReadRoutingProperties properties;
+
+	public ConsistencyTokenFilter(final ReadRoutingProperties properties) {
+		this.properties = properties;
+	}
+
+	@Override
+	public Mono<Void> filter(final ServerWebExchange exchange, final WebFilterChain chain) {
+		ServerHttpRequest request = exchange.getRequest();
+		if (!properties.enabled() || !request.getPath().pathWithinApplication().value().startsWith(PATH)) {
+			return chain.filter(exchange);
+		}
+
+		ConsistencyToken token = ConsistencyToken.of(request.getHeaders().getFirst(ConsistencyToken.HEADER));
+		exchange.getResponse().beforeCommit(() -> {
+			if (token.advanced()) {
+				exchange.getResponse().getHeaders().set(ConsistencyToken.HEADER, token.toString());
+			}
+			return Mono.empty();
+		});
+		return chain.filter(exchange).contextWrite(context -> context.put(ConsistencyToken.class, token));
+	}
+
+}
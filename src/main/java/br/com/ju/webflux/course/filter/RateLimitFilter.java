@@ -0,0 +1,157 @@
+package br.com.ju.webflux.course.filter;
+
+import static org.springframework.http.HttpHeaders.RETRY_AFTER;
+import static org.springframework.http.HttpStatus.TOO_MANY_REQUESTS;
+
+import java.net.InetSocketAddress;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import br.com.ju.webflux.course.config.RateLimitProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+
+/**
+ * Rejects {@code /users} requests with 429 and {@code Retry-After} when the
+ * calling client has run out of tokens, or when the bulkhead of a long-running
+ * endpoint (full listings, batch writes, event streams) is full. Permits are
+ * returned when the response completes or the client goes away.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RateLimitFilter implements WebFilter {
+
+	private static final String PATH = "/users";
+
+	private final RateLimitProperties properties;
+	private final Cache<String, TokenBucket> buckets;
+	private final Map<Endpoint, Bulkhead> bulkheads = new EnumMap<>(Endpoint.class);
+	private final Map<Endpoint, Counter> rateRejections = new EnumMap<>(Endpoint.class);
+	private final Map<Endpoint, Counter> bulkheadRejections = new EnumMap<>(Endpoint.class);
+
+	public RateLimitFilter(final RateLimitProperties properties, final MeterRegistry registry) {
+		this.properties = properties;
+		this.buckets = Caffeine.newBuilder()
+				.maximumSize(properties.maxClients())
+				.expireAfterAccess(properties.idleTimeout())
+				.build();
+		for (Endpoint endpoint : Endpoint.values()) {
+			rateRejections.put(endpoint, Counter.builder("users.ratelimit.rejected")
+					.tag("reason", "rate")
+					.tag("endpoint", endpoint.tag())
+					.register(registry));
+		}
+		RateLimitProperties.Bulkheads limits = properties.bulkheads();
+		bulkheads.put(Endpoint.LIST, new Bulkhead(limits.list()));
+		bulkheads.put(Endpoint.BATCH, new Bulkhead(limits.batch()));
+		bulkheads.put(Endpoint.EVENTS, new Bulkhead(limits.events()));
+		bulkheads.forEach((endpoint, bulkhead) -> {
+			Gauge.builder("users.bulkhead.active", bulkhead, Bulkhead::active)
+					.tag("endpoint", endpoint.tag())
+					.register(registry);
+			bulkheadRejections.put(endpoint, Counter.builder("users.ratelimit.rejected")
+					.tag("reason", "bulkhead")
+					.tag("endpoint", endpoint.tag())
+					.register(registry));
+		});
+	}
+
+	@Override
+	public Mono<Void> filter(final ServerWebExchange exchange, final WebFilterChain chain) {
+		ServerHttpRequest request = exchange.getRequest();
+		if (!properties.enabled() || !limited(request.getPath().pathWithinApplication().value())) {
+			return chain.filter(exchange);
+		}
+
+		Endpoint endpoint = Endpoint.of(request);
+		long now = System.nanoTime();
+		long wait = buckets
+				.get(clientKey(request), key -> new TokenBucket(properties.capacity(), properties.refillPerSecond(), now))
+				.tryAcquire(now);
+		if (wait > 0) {
+			rateRejections.get(endpoint).increment();
+			return reject(exchange.getResponse(), wait);
+		}
+
+		Bulkhead bulkhead = bulkheads.get(endpoint);
+		if (bulkhead == null) {
+			return chain.filter(exchange);
+		}
+		if (!bulkhead.tryAcquire()) {
+			bulkheadRejections.get(endpoint).increment();
+			return reject(exchange.getResponse(), TimeUnit.SECONDS.toNanos(1));
+		}
+		return chain.filter(exchange).doFinally(signal -> bulkhead.release());
+	}
+
+	private static boolean limited(final String path) {
+		return path.equals(PATH) || path.startsWith(PATH + "/");
+	}
+
+	/**
+	 * The remote address, or the client header when the remote address is a
+	 * trusted proxy that set it.
+	 */
+	private String clientKey(final ServerHttpRequest request) {
+		InetSocketAddress address = request.getRemoteAddress();
+		String peer = address == null ? "unknown"
+				: address.getAddress() == null ? address.getHostString() : address.getAddress().getHostAddress();
+		if (properties.trustedProxies().contains(peer)) {
+			String client = request.getHeaders().getFirst(properties.clientHeader());
+			if (client != null && !client.isBlank()) {
+				return client;
+			}
+		}
+		return peer;
+	}
+
+	private static Mono<Void> reject(final ServerHttpResponse response, final long waitNanos) {
+		long seconds = Math.max(1, (waitNanos + 999_999_999L) / 1_000_000_000L);
+		response.setStatusCode(TOO_MANY_REQUESTS);
+		response.getHeaders().set(RETRY_AFTER, String.valueOf(seconds));
+		return response.setComplete();
+	}
+
+	private enum Endpoint {
+		LIST,
+		BATCH,
+		EVENTS,
+		OTHER;
+
+		String tag() {
+			return name().toLowerCase();
+		}
+
+		static Endpoint of(final ServerHttpRequest request) {
+			String path = request.getPath().pathWithinApplication().value();
+			HttpMethod method = request.getMethod();
+			if (HttpMethod.GET.equals(method) && (path.equals(PATH) || path.equals(PATH + "/"))) {
+				return LIST;
+			}
+			if (HttpMethod.GET.equals(method) && path.equals(PATH + "/events")) {
+				return EVENTS;
+			}
+			if (path.equals(PATH + "/batch")) {
+				return BATCH;
+			}
+			return OTHER;
+		}
+	}
+
+}
@@ -0,0 +1,43 @@
+package br.com.ju.webflux.course.filter;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket kept as a single theoretical arrival time (GCRA).
+ * Each admitted request pushes the arrival time one emission interval into
+ * the future; a request is rejected when that would run more than
+ * {@code capacity} intervals ahead of now.
+ */
+class TokenBucket {
+
+	private final long interval;
+	private final long tolerance;
+	private final AtomicLong arrival;
+
+	TokenBucket(final int capacity, final int refillPerSecond, final long now) {
+		this.interval = 1_000_000_000L / refillPerSecond;
+		this.tolerance = interval * (capacity - 1);
+		this.arrival = new AtomicLong(now);
+	}
+
+	/**
+	 * Takes one token.
+	 *
+	 * @return {@code 0} when the request is admitted, otherwise the nanoseconds
+	 * until the next token is available
+	 */
+	long tryAcquire(final long now) {
+		while (true) {
+			long current = arrival.get();
+			long start = Math.max(current, now);
+			long wait = start - tolerance - now;
+			if (wait > 0) {
+				return wait;
+			}
+			if (arrival.compareAndSet(current, start + interval)) {
+				return 0;
+			}
+		}
+	}
+
+}
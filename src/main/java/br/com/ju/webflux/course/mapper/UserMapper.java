@@ -9,6 +9,7 @@ import org.mapstruct.MappingTarget;
 
 import br.com.ju.webflux.course.entity.User;
 import br.com.ju.webflux.course.model.request.UserRequest;
+import br.com.ju.webflux.course.model.request.UserUpdateRequest;
 import br.com.ju.webflux.course.model.response.UserResponse;
 
 @Mapper(
@@ -19,11 +20,19 @@ import br.com.ju.webflux.course.model.response.UserResponse;
 public interface UserMapper {
 	
 	@Mapping(target = "id", ignore = true)
+	@Mapping(target = "version", ignore = true)
+	@Mapping(target = "deletedAt", ignore = true)
 	User toEntity(final UserRequest request);
 	
 	@Mapping(target = "id", ignore = true)
+	@Mapping(target = "version", ignore = true)
+	@Mapping(target = "deletedAt", ignore = true)
 	User toEntity(final UserRequest request, @MappingTarget final User entity);
 	
+	@Mapping(target = "version", ignore = true)
+	@Mapping(target = "deletedAt", ignore = true)
+	User toEntity(final UserUpdateRequest request);
+	
 	UserResponse toResponse(final User entity);
 	
 }
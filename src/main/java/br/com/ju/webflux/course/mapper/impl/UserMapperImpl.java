@@ -3,6 +3,7 @@ package br.com.ju.webflux.course.mapper.impl;
 import br.com.ju.webflux.course.entity.User;
 import br.com.ju.webflux.course.mapper.UserMapper;
 import br.com.ju.webflux.course.model.request.UserRequest;
+import br.com.ju.webflux.course.model.request.UserUpdateRequest;
 import br.com.ju.webflux.course.model.response.UserResponse;
 import lombok.Generated;
 
@@ -52,6 +53,30 @@ public class UserMapperImpl implements UserMapper {
         return entity;
 	}
 
+	@Override
+	public User toEntity(UserUpdateRequest request) {
+		if ( request == null ) {
+            return null;
+        }
+
+        User.UserBuilder user = User.builder();
+
+        if ( request.id() != null ) {
+            user.id( request.id() );
+        }
+        if ( request.name() != null ) {
+            user.name( request.name() );
+        }
+        if ( request.email() != null ) {
+            user.email( request.email() );
+        }
+        if ( request.password() != null ) {
+            user.password( request.password() );
+        }
+
+        return user.build();
+	}
+
 	@Override
 	public UserResponse toResponse(User entity) {
 		if (entity == null) {
@@ -61,7 +86,7 @@ public class UserMapperImpl implements UserMapper {
 		String id = null;
 		String name = null;
 		String email = null;
-		String password = null;
+		Long version = null;
 		
 		if ( entity.getId() != null ) {
             id = entity.getId();
@@ -72,11 +97,11 @@ public class UserMapperImpl implements UserMapper {
         if ( entity.getEmail() != null ) {
             email = entity.getEmail();
         }
-        if ( entity.getPassword() != null ) {
-            password = entity.getPassword();
+        if ( entity.getVersion() != null ) {
+            version = entity.getVersion();
         }
         
-        UserResponse userResponse = new UserResponse(id, name, email, password);
+        UserResponse userResponse = new UserResponse(id, name, email, version);
 		
 		return userResponse;
 	}
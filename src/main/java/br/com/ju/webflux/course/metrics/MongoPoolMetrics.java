@@ -0,0 +1,51 @@
+package br.com.ju.webflux.course.metrics;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import com.mongodb.event.ConnectionCheckOutFailedEvent;
+import com.mongodb.event.ConnectionCheckedOutEvent;
+import com.mongodb.event.ConnectionPoolListener;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Counts connection checkouts as {@code users.mongo.pool.checkouts} and failed
+ * ones as {@code users.mongo.pool.checkout.failed}, tagged with the reason:
+ * {@code timeout} means the pool stayed exhausted for the whole
+ * {@code maxWaitTime}. Pool size, checked-out connections and waiting
+ * checkouts are already published by Spring Boot as
+ * {@code mongodb.driver.pool.*}.
+ */
+@Component
+@Profile("!embedded")
+public class MongoPoolMetrics implements ConnectionPoolListener {
+
+	private final Counter checkouts;
+	private final Map<ConnectionCheckOutFailedEvent.Reason, Counter> failures =
+			new EnumMap<>(ConnectionCheckOutFailedEvent.Reason.class);
+
+	public MongoPoolMetrics(final MeterRegistry registry) {
+		this.checkouts = registry.counter("users.mongo.pool.checkouts");
+		for (ConnectionCheckOutFailedEvent.Reason reason : ConnectionCheckOutFailedEvent.Reason.values()) {
+			failures.put(reason, Counter.builder("users.mongo.pool.checkout.failed")
+					.tag("reason", reason.name().toLowerCase())
+					.register(registry));
+		}
+	}
+
+	@Override
+	public void connectionCheckedOut(final ConnectionCheckedOutEvent event) {
+		checkouts.increment();
+	}
+
+	@Override
+	public void connectionCheckOutFailed(final ConnectionCheckOutFailedEvent event) {
+		failures.get(event.getReason()).increment();
+	}
+
+}
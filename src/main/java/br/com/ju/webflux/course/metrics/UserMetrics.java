@@ -0,0 +1,78 @@
+package br.com.ju.webflux.course.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.observability.micrometer.Micrometer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Meters for the user pipeline. Reactive stages are named {@code users.<layer>}
+ * and tagged with the operation, so Reactor publishes
+ * {@code users.<layer>.flow.duration} timers split by outcome. Mapper calls,
+ * bean validation and handled exceptions get their own timers and counter,
+ * and repository reads are counted by the node they were routed to.
+ */
+@Component
+public class UserMetrics {
+	
+	private final MeterRegistry registry;
+	private final Map<String, Timer> mapperTimers = new ConcurrentHashMap<>();
+	private final Map<Class<?>, Timer> validationTimers = new ConcurrentHashMap<>();
+	private final Map<String, Counter> errorCounters = new ConcurrentHashMap<>();
+	private final Map<String, Counter> readCounters = new ConcurrentHashMap<>();
+	
+	public UserMetrics(final MeterRegistry registry) {
+		this.registry = registry;
+	}
+	
+	public <T> Mono<T> timed(final Mono<T> mono, final String layer, final String operation) {
+		return mono.name("users." + layer)
+				.tag("operation", operation)
+				.tap(Micrometer.metrics(registry));
+	}
+	
+	public <T> Flux<T> timed(final Flux<T> flux, final String layer, final String operation) {
+		return flux.name("users." + layer)
+				.tag("operation", operation)
+				.tap(Micrometer.metrics(registry));
+	}
+	
+	public <T> T mapping(final String operation, final Supplier<T> mapping) {
+		return mapperTimers.computeIfAbsent(operation,
+				key -> Timer.builder("users.mapper").tag("operation", key).register(registry))
+				.record(mapping);
+	}
+	
+	public <T> T validating(final Class<?> type, final Supplier<T> validation) {
+		return validationTimers.computeIfAbsent(type,
+				key -> Timer.builder("users.validation").tag("type", key.getSimpleName()).register(registry))
+				.record(validation);
+	}
+	
+	public void error(final Class<? extends Throwable> type, final int status) {
+		errorCounters.computeIfAbsent(type.getSimpleName() + status,
+				key -> Counter.builder("users.errors")
+				.tag("exception", type.getSimpleName())
+				.tag("status", String.valueOf(status))
+				.register(registry))
+		.increment();
+	}
+	
+	public void routed(final String operation, final String target) {
+		readCounters.computeIfAbsent(operation + ':' + target,
+				key -> Counter.builder("users.repository.reads")
+				.tag("operation", operation)
+				.tag("target", target)
+				.register(registry))
+		.increment();
+	}
+
+}
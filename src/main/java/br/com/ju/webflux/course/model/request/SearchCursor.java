@@ -0,0 +1,35 @@
+package br.com.ju.webflux.course.model.request;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.util.Base64;
+
+/**
+ * Position after the last user of a search page: the value of the searched
+ * field and the id breaking ties between equal values. Travels as an opaque
+ * URL-safe token.
+ */
+public record SearchCursor(
+		
+		String value,
+		String id
+		
+		) {
+	
+	private static final char SEPARATOR = '\u0000';
+	
+	public String encode() {
+		return Base64.getUrlEncoder().withoutPadding()
+				.encodeToString((value + SEPARATOR + id).getBytes(UTF_8));
+	}
+	
+	public static SearchCursor decode(final String token) {
+		String decoded = new String(Base64.getUrlDecoder().decode(token), UTF_8);
+		int separator = decoded.lastIndexOf(SEPARATOR);
+		if (separator < 0) {
+			throw new IllegalArgumentException("Malformed search cursor");
+		}
+		return new SearchCursor(decoded.substring(0, separator), decoded.substring(separator + 1));
+	}
+
+}
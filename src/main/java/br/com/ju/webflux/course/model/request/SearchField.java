@@ -0,0 +1,37 @@
+package br.com.ju.webflux.course.model.request;
+
+import java.util.function.Function;
+
+import br.com.ju.webflux.course.entity.User;
+
+public enum SearchField {
+	
+	NAME("name", User::getName),
+	EMAIL("email", User::getEmail);
+	
+	private final String field;
+	private final Function<User, String> value;
+	
+	SearchField(final String field, final Function<User, String> value) {
+		this.field = field;
+		this.value = value;
+	}
+	
+	public String field() {
+		return field;
+	}
+	
+	public String valueOf(final User user) {
+		return value.apply(user);
+	}
+	
+	public static SearchField of(final String field) {
+		for (SearchField candidate : values()) {
+			if (candidate.field.equalsIgnoreCase(field)) {
+				return candidate;
+			}
+		}
+		return null;
+	}
+
+}
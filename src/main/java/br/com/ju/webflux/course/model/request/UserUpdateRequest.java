@@ -0,0 +1,29 @@
+package br.com.ju.webflux.course.model.request;
+
+import br.com.ju.webflux.course.validator.TrimString;
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+
+/**
+ * One item of a batch update: the id of the user and the fields to change.
+ * Fields left null are kept as they are.
+ */
+public record UserUpdateRequest(
+		
+		@NotBlank(message = "must not be null or empty")
+		String id,
+		
+		@TrimString
+		@Size(min = 3, max = 50, message = "must be between 3 and 50 characters")
+		String name,
+		
+		@TrimString
+		@Email(message = "Invalid email")
+		String email,
+		
+		@TrimString
+		@Size(min = 3, max = 20, message = "must be between 3 and 20 characters")
+		String password
+		
+		) {}
@@ -0,0 +1,8 @@
+package br.com.ju.webflux.course.model.response;
+
+public record EmailDomainCount(
+		
+		String domain,
+		long count
+		
+		) {}
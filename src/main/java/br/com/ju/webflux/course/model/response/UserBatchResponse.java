@@ -0,0 +1,44 @@
+package br.com.ju.webflux.course.model.response;
+
+public record UserBatchResponse(
+		
+		long index,
+		String id,
+		Status status,
+		String message
+		
+		) {
+	
+	public enum Status {
+		CREATED,
+		UPDATED,
+		DELETED,
+		NOT_FOUND,
+		REJECTED
+	}
+	
+	public static UserBatchResponse created(final long index, final String id) {
+		return new UserBatchResponse(index, id, Status.CREATED, null);
+	}
+	
+	public static UserBatchResponse updated(final long index, final String id) {
+		return new UserBatchResponse(index, id, Status.UPDATED, null);
+	}
+	
+	public static UserBatchResponse deleted(final long index, final String id) {
+		return new UserBatchResponse(index, id, Status.DELETED, null);
+	}
+	
+	public static UserBatchResponse notFound(final long index, final String id) {
+		return new UserBatchResponse(index, id, Status.NOT_FOUND, null);
+	}
+	
+	public static UserBatchResponse rejected(final long index, final String message) {
+		return rejected(index, null, message);
+	}
+	
+	public static UserBatchResponse rejected(final long index, final String id, final String message) {
+		return new UserBatchResponse(index, id, Status.REJECTED, message);
+	}
+
+}
@@ -0,0 +1,7 @@
+package br.com.ju.webflux.course.model.response;
+
+public record UserCountResponse(
+		
+		long count
+		
+		) {}
@@ -0,0 +1,12 @@
+package br.com.ju.webflux.course.model.response;
+
+import br.com.ju.webflux.course.entity.UserChange;
+
+public record UserEventResponse(
+		
+		String resumeToken,
+		UserChange.Type type,
+		String id,
+		UserResponse user
+		
+		) {}
@@ -0,0 +1,20 @@
+package br.com.ju.webflux.course.model.response;
+
+import java.util.List;
+
+public record UserPageResponse(
+		
+		List<UserResponse> content,
+		String next
+		
+		) {
+	
+	public static UserPageResponse of(final List<UserResponse> content, final int limit) {
+		String next = null;
+		if (!content.isEmpty() && content.size() == limit) {
+			next = content.get(content.size() - 1).id();
+		}
+		return new UserPageResponse(content, next);
+	}
+
+}
@@ -5,6 +5,6 @@ public record UserResponse(
 		String id,
 		String name,
 		String email,
-		String password
+		Long version
 		
 		) {}
@@ -0,0 +1,10 @@
+package br.com.ju.webflux.course.model.response;
+
+import java.util.List;
+
+public record UserStatsResponse(
+		
+		long total,
+		List<EmailDomainCount> emailDomains
+		
+		) {}
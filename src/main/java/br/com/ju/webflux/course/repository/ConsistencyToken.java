@@ -0,0 +1,61 @@
+package br.com.ju.webflux.course.repository;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Point in the store's history a client has observed, carried in the Reactor
+ * context of a request. It starts from the {@value #HEADER} header the client
+ * sent back, if any, and is advanced by the writes the request makes, so a
+ * later read can wait for the replica to catch up with them.
+ */
+public final class ConsistencyToken {
+	
+	public static final String HEADER = "X-Consistency-Token";
+	
+	private final AtomicLong operationTime;
+	private volatile boolean advanced;
+	
+	private ConsistencyToken(final long operationTime) {
+		this.operationTime = new AtomicLong(operationTime);
+	}
+	
+	/**
+	 * Parses the header value, ignoring a missing or malformed one.
+	 */
+	public static ConsistencyToken of(final String header) {
+		long operationTime = 0;
+		if (header != null) {
+			try {
+				operationTime = Long.parseLong(header.trim());
+			} catch (NumberFormatException ex) {
+				operationTime = 0;
+			}
+		}
+		return new ConsistencyToken(operationTime);
+	}
+	
+	/**
+	 * The operation time to read after, or {@code 0} for none.
+	 */
+	public long operationTime() {
+		return operationTime.get();
+	}
+	
+	public void advance(final long time) {
+		operationTime.accumulateAndGet(time, Math::max);
+		advanced = true;
+	}
+	
+	/**
+	 * Whether a write of this request moved the token, so it should be sent back.
+	 */
+	public boolean advanced() {
+		return advanced;
+	}
+	
+	@Override
+	public String toString() {
+		return Long.toString(operationTime.get());
+	}
+	
+}
@@ -1,39 +1,108 @@
 package br.com.ju.webflux.course.repository;
 
-import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
-import org.springframework.data.mongodb.core.query.Criteria;
-import org.springframework.data.mongodb.core.query.Query;
-import org.springframework.stereotype.Repository;
+import java.util.Collection;
+import java.util.List;
 
 import br.com.ju.webflux.course.entity.User;
-import lombok.Generated;
-import lombok.RequiredArgsConstructor;
+import br.com.ju.webflux.course.entity.UserChange;
+import br.com.ju.webflux.course.model.request.SearchCursor;
+import br.com.ju.webflux.course.model.request.SearchField;
+import br.com.ju.webflux.course.model.response.EmailDomainCount;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-@Repository
-@RequiredArgsConstructor
-@Generated
-public class UserRepository {
+/**
+ * Storage of users. Read methods never return the password and never return
+ * deleted users. The {@code embedded} profile swaps the MongoDB
+ * implementation for an in-process one.
+ */
+public interface UserRepository {
 	
-	private final ReactiveMongoTemplate mongoTemplate;
+	Mono<User> save(User user);
+	
+	/**
+	 * Inserts the users, assigning ids to the users that have none. Rejected
+	 * users are reported by their position in {@code users}; the others are
+	 * inserted regardless.
+	 */
+	Mono<List<WriteError>> insertAll(List<User> users);
+	
+	/**
+	 * Applies the non-null fields of each user to the stored user with the same
+	 * id. Failed updates are reported by their position in {@code changes},
+	 * including those that found no live user.
+	 */
+	Mono<List<WriteError>> updateAll(List<User> changes);
+	
+	/**
+	 * Deletes the users. Failed deletes are reported by their position in
+	 * {@code ids}, including those that found no live user.
+	 */
+	Mono<List<WriteError>> deleteAll(List<String> ids);
+	
+	/**
+	 * Returns which of {@code ids} belong to live users.
+	 */
+	Flux<String> findExistingIds(Collection<String> ids);
+	
+	Mono<User> findById(String id);
+	
+	Flux<User> findAllById(Collection<String> ids);
+	
+	Flux<String> findAllEmails();
+	
+	Flux<User> findAll();
+	
+	/**
+	 * Returns up to {@code limit} users ordered by id, starting after
+	 * {@code after} when it is given.
+	 */
+	Flux<User> findPage(String after, int limit);
+	
+	/**
+	 * Finds users whose {@code field} starts with {@code prefix}, ordered by that
+	 * field and then id, starting after {@code after} when it is given.
+	 */
+	Flux<User> search(SearchField field, String prefix, SearchCursor after, int limit);
+	
+	/**
+	 * Streams every user, fetching {@code batchSize} at a time where the
+	 * storage supports it.
+	 */
+	Flux<User> stream(int batchSize);
+	
+	Mono<Long> count();
+	
+	/**
+	 * Returns the {@code limit} e-mail domains with the most users.
+	 */
+	Flux<EmailDomainCount> countByEmailDomain(int limit);
+	
+	/**
+	 * Applies the non-null fields of {@code changes} to the user and returns
+	 * the updated user. When {@code expectedVersion} is given, the update only
+	 * matches that version of the user.
+	 */
+	Mono<User> update(String id, User changes, Long expectedVersion);
+	
+	Mono<Boolean> existsById(String id);
+	
+	/**
+	 * Tells whether a user other than {@code excludedId} already has the e-mail.
+	 */
+	Mono<Boolean> existsByEmail(String email, String excludedId);
+	
+	/**
+	 * Deletes the user, only matching {@code expectedVersion} when it is given.
+	 *
+	 * @return whether a live user was deleted
+	 */
+	Mono<Boolean> delete(String id, Long expectedVersion);
+	
+	/**
+	 * Streams changes to users, starting right after {@code resumeAfter} when a
+	 * token is given.
+	 */
+	Flux<UserChange> watch(String resumeAfter);
 	
-	public Mono<User> save(final User user){
-		return mongoTemplate.save(user);
-	}
-
-	public Mono<User> findById(String id) {
-		return mongoTemplate.findById(id, User.class);
-	}
-
-	public Flux<User> findAll() {
-		return mongoTemplate.findAll(User.class);
-	}
-
-	public Mono<User> findAndRemove(String id) {
-		Query query = new Query();
-		Criteria where = Criteria.where("id").is(id);
-		return mongoTemplate.findAndRemove(query.addCriteria(where), User.class);
-	}
-
 }
@@ -0,0 +1,25 @@
+package br.com.ju.webflux.course.repository;
+
+/**
+ * A rejected item of a bulk write, by its position in the submitted list.
+ * {@code notFound} marks an update or delete whose user did not exist, or no
+ * longer did by the time the write reached it.
+ */
+public record WriteError(
+		
+		int index,
+		boolean duplicateKey,
+		boolean notFound,
+		String message
+		
+		) {
+	
+	public static WriteError duplicateKey(final int index, final String message) {
+		return new WriteError(index, true, false, message);
+	}
+	
+	public static WriteError notFound(final int index) {
+		return new WriteError(index, false, true, "not found");
+	}
+	
+}
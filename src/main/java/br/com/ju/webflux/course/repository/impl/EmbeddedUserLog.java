@@ -0,0 +1,189 @@
+package br.com.ju.webflux.course.repository.impl;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+import br.com.ju.webflux.course.entity.User;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Append-only log of the embedded user store. Each record is framed as
+ * {@code [length][crc32][payload]} and either puts a whole user or deletes an
+ * id. On open the file is read through a memory map, a torn tail left by a
+ * crash is dropped, and the live users are written back as a compacted log,
+ * so a restart reads each user once.
+ */
+@Slf4j
+class EmbeddedUserLog implements Closeable {
+
+	private static final byte PUT = 1;
+	private static final byte DELETE = 2;
+	private static final int HEADER = Integer.BYTES * 2;
+
+	private final FileChannel channel;
+	private final boolean fsync;
+
+	private EmbeddedUserLog(final FileChannel channel, final boolean fsync) {
+		this.channel = channel;
+		this.fsync = fsync;
+	}
+
+	/**
+	 * Replays the log at {@code path} into {@code users}, compacts it and opens
+	 * it for appending.
+	 */
+	static EmbeddedUserLog open(final Path path, final boolean fsync, final Consumer<User> put,
+			final Consumer<String> delete, final Map<String, User> users) throws IOException {
+		if (Files.exists(path)) {
+			replay(path, put, delete);
+		}
+
+		Path compacted = path.resolveSibling(path.getFileName() + ".compact");
+		try (FileChannel out = FileChannel.open(compacted, CREATE, WRITE, TRUNCATE_EXISTING)) {
+			for (User user : users.values()) {
+				write(out, put(user));
+			}
+			out.force(true);
+		}
+		Files.move(compacted, path, REPLACE_EXISTING, ATOMIC_MOVE);
+		log.info("Opened user log {} with {} users", path, users.size());
+
+		return new EmbeddedUserLog(FileChannel.open(path, CREATE, WRITE, APPEND), fsync);
+	}
+
+	void put(final User user) {
+		append(put(user));
+	}
+
+	void delete(final String id) {
+		append(record(DELETE, out -> out.writeUTF(id)));
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.force(true);
+		channel.close();
+	}
+
+	private void append(final ByteBuffer record) {
+		try {
+			write(channel, record);
+			if (fsync) {
+				channel.force(false);
+			}
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	private static void write(final FileChannel channel, final ByteBuffer record) throws IOException {
+		while (record.hasRemaining()) {
+			channel.write(record);
+		}
+	}
+
+	private static void replay(final Path path, final Consumer<User> put, final Consumer<String> delete)
+			throws IOException {
+		try (FileChannel in = FileChannel.open(path, READ)) {
+			MappedByteBuffer buffer = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+			while (buffer.remaining() >= HEADER) {
+				int length = buffer.getInt();
+				int crc = buffer.getInt();
+				if (length <= 0 || length > buffer.remaining()) {
+					break;
+				}
+				byte[] payload = new byte[length];
+				buffer.get(payload);
+				if (crc != crc(payload)) {
+					break;
+				}
+				DataInputStream record = new DataInputStream(new ByteArrayInputStream(payload));
+				if (record.readByte() == PUT) {
+					put.accept(User.builder()
+							.id(record.readUTF())
+							.name(readNullable(record))
+							.email(readNullable(record))
+							.password(readNullable(record))
+							.version(record.readLong())
+							.build());
+				} else {
+					delete.accept(record.readUTF());
+				}
+			}
+			if (buffer.hasRemaining()) {
+				log.warn("Dropped {} bytes of torn records at the end of {}", buffer.remaining(), path);
+			}
+		}
+	}
+
+	private static ByteBuffer put(final User user) {
+		return record(PUT, out -> {
+			out.writeUTF(user.getId());
+			writeNullable(out, user.getName());
+			writeNullable(out, user.getEmail());
+			writeNullable(out, user.getPassword());
+			out.writeLong(user.getVersion() == null ? 0 : user.getVersion());
+		});
+	}
+
+	private static ByteBuffer record(final byte type, final RecordWriter writer) {
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+			DataOutputStream out = new DataOutputStream(bytes);
+			out.writeByte(type);
+			writer.write(out);
+			byte[] payload = bytes.toByteArray();
+			return ByteBuffer.allocate(HEADER + payload.length)
+					.putInt(payload.length)
+					.putInt(crc(payload))
+					.put(payload)
+					.flip();
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	private static int crc(final byte[] payload) {
+		CRC32 crc = new CRC32();
+		crc.update(payload);
+		return (int) crc.getValue();
+	}
+
+	private static void writeNullable(final DataOutputStream out, final String value) throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null) {
+			out.writeUTF(value);
+		}
+	}
+
+	private static String readNullable(final DataInputStream in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+
+	@FunctionalInterface
+	private interface RecordWriter {
+		void write(DataOutputStream out) throws IOException;
+	}
+
+}
@@ -0,0 +1,413 @@
+package br.com.ju.webflux.course.repository.impl;
+
+import static java.util.Comparator.comparing;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Repository;
+
+import br.com.ju.webflux.course.config.EmbeddedProperties;
+import br.com.ju.webflux.course.entity.User;
+import br.com.ju.webflux.course.entity.UserChange;
+import br.com.ju.webflux.course.metrics.UserMetrics;
+import br.com.ju.webflux.course.model.request.SearchCursor;
+import br.com.ju.webflux.course.model.request.SearchField;
+import br.com.ju.webflux.course.model.response.EmailDomainCount;
+import br.com.ju.webflux.course.repository.UserRepository;
+import br.com.ju.webflux.course.repository.WriteError;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * In-process {@link UserRepository} of the {@code embedded} profile. Users are
+ * kept in a skip list ordered by id, with a unique e-mail index and sorted
+ * name and e-mail indexes for prefix search. Reads go straight to the maps
+ * without locking; writes run one at a time on a dedicated thread, which keeps
+ * the indexes and the optional log consistent without locks either.
+ * <p>
+ * Deletes are always hard, and change events are live only: resume tokens
+ * are accepted but nothing before the subscription is replayed.
+ */
+@Repository
+@Profile("embedded")
+public class EmbeddedUserRepository implements UserRepository, DisposableBean {
+
+	private static final String LAYER = "repository";
+	private static final Comparator<SearchCursor> ORDER = comparing(SearchCursor::value).thenComparing(SearchCursor::id);
+
+	private final ConcurrentSkipListMap<String, User> users = new ConcurrentSkipListMap<>();
+	private final Map<String, String> emails = new ConcurrentHashMap<>();
+	private final Map<SearchField, NavigableSet<SearchCursor>> indexes = new EnumMap<>(SearchField.class);
+	private final Sinks.Many<UserChange> changes = Sinks.many().multicast().directBestEffort();
+	private final AtomicLong sequence = new AtomicLong();
+	private final Scheduler writer = Schedulers.newSingle("users-embedded-writer");
+	private final UserMetrics metrics;
+	private final EmbeddedUserLog log;
+
+	public EmbeddedUserRepository(final EmbeddedProperties properties, final UserMetrics metrics) {
+		this.metrics = metrics;
+		for (SearchField field : SearchField.values()) {
+			indexes.put(field, new ConcurrentSkipListSet<>(ORDER));
+		}
+		if (properties.log() == null) {
+			this.log = null;
+			return;
+		}
+		try {
+			this.log = EmbeddedUserLog.open(properties.log(), properties.fsync(), this::store, this::evict, users);
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	@Override
+	public Mono<User> save(final User user) {
+		return write("save", () -> {
+			if (user.getId() == null) {
+				user.setId(ObjectId.get().toHexString());
+			}
+			User current = users.get(user.getId());
+			if (current != null && user.getVersion() != null && !user.getVersion().equals(current.getVersion())) {
+				throw new OptimisticLockingFailureException("Version " + user.getVersion() + " of user "
+						+ user.getId() + " is no longer current");
+			}
+			if (emailTaken(user.getEmail(), user.getId())) {
+				throw new DuplicateKeyException("E-mail already registered");
+			}
+			user.setVersion(current == null ? 0L : current.getVersion() + 1);
+			put(copy(user), current == null ? UserChange.Type.CREATED : UserChange.Type.UPDATED);
+			return user;
+		});
+	}
+
+	@Override
+	public Mono<List<WriteError>> insertAll(final List<User> batch) {
+		return write("insertAll", () -> {
+			List<WriteError> errors = new ArrayList<>();
+			for (int i = 0; i < batch.size(); i++) {
+				User user = batch.get(i);
+				if (user.getId() == null) {
+					user.setId(ObjectId.get().toHexString());
+				}
+				if (users.containsKey(user.getId()) || emailTaken(user.getEmail(), user.getId())) {
+					errors.add(WriteError.duplicateKey(i, "duplicate key"));
+					continue;
+				}
+				user.setVersion(0L);
+				put(copy(user), UserChange.Type.CREATED);
+			}
+			return errors;
+		});
+	}
+
+	@Override
+	public Mono<List<WriteError>> updateAll(final List<User> batch) {
+		return write("updateAll", () -> {
+			List<WriteError> errors = new ArrayList<>();
+			for (int i = 0; i < batch.size(); i++) {
+				User current = users.get(batch.get(i).getId());
+				if (current == null) {
+					errors.add(WriteError.notFound(i));
+					continue;
+				}
+				if (emailTaken(batch.get(i).getEmail(), current.getId())) {
+					errors.add(WriteError.duplicateKey(i, "duplicate key"));
+					continue;
+				}
+				put(apply(current, batch.get(i)), UserChange.Type.UPDATED);
+			}
+			return errors;
+		});
+	}
+
+	@Override
+	public Mono<List<WriteError>> deleteAll(final List<String> ids) {
+		return write("deleteAll", () -> {
+			List<WriteError> errors = new ArrayList<>();
+			for (int i = 0; i < ids.size(); i++) {
+				if (!remove(ids.get(i))) {
+					errors.add(WriteError.notFound(i));
+				}
+			}
+			return errors;
+		});
+	}
+
+	@Override
+	public Flux<String> findExistingIds(final Collection<String> ids) {
+		return metrics.timed(Flux.fromIterable(ids).filter(users::containsKey), LAYER, "findExistingIds");
+	}
+
+	@Override
+	public Mono<User> findById(final String id) {
+		return metrics.timed(Mono.fromSupplier(() -> view(users.get(id))), LAYER, "findById");
+	}
+
+	@Override
+	public Flux<User> findAllById(final Collection<String> ids) {
+		return metrics.timed(Flux.fromIterable(ids).mapNotNull(users::get).map(EmbeddedUserRepository::view),
+				LAYER, "findAllById");
+	}
+
+	@Override
+	public Flux<String> findAllEmails() {
+		return metrics.timed(Flux.fromIterable(emails.keySet()), LAYER, "findAllEmails");
+	}
+
+	@Override
+	public Flux<User> findAll() {
+		return metrics.timed(Flux.fromIterable(users.values()).map(EmbeddedUserRepository::view), LAYER, "findAll");
+	}
+
+	@Override
+	public Flux<User> findPage(final String after, final int limit) {
+		return metrics.timed(Flux.defer(() -> Flux.fromIterable(
+				(after == null ? users : users.tailMap(after, false)).values()))
+				.take(limit)
+				.map(EmbeddedUserRepository::view), LAYER, "findPage");
+	}
+
+	/**
+	 * Walks the field's sorted index from the prefix, or from the cursor, and
+	 * stops at the first value without the prefix.
+	 */
+	@Override
+	public Flux<User> search(final SearchField field, final String prefix, final SearchCursor after, final int limit) {
+		return metrics.timed(Flux.defer(() -> Flux.fromIterable(after == null
+				? indexes.get(field).tailSet(new SearchCursor(prefix, ""), true)
+				: indexes.get(field).tailSet(after, false)))
+				.takeWhile(entry -> entry.value().startsWith(prefix))
+				.mapNotNull(entry -> users.get(entry.id()))
+				.take(limit)
+				.map(EmbeddedUserRepository::view), LAYER, "search");
+	}
+
+	@Override
+	public Flux<User> stream(final int batchSize) {
+		return metrics.timed(Flux.fromIterable(users.values()).map(EmbeddedUserRepository::view), LAYER, "stream");
+	}
+
+	@Override
+	public Mono<Long> count() {
+		return metrics.timed(Mono.fromSupplier(() -> (long) users.size()), LAYER, "count");
+	}
+
+	@Override
+	public Flux<EmailDomainCount> countByEmailDomain(final int limit) {
+		return metrics.timed(Flux.defer(() -> {
+			Map<String, Long> domains = new HashMap<>();
+			for (String email : emails.keySet()) {
+				int at = email.indexOf('@');
+				if (at >= 0) {
+					domains.merge(email.substring(at + 1), 1L, Long::sum);
+				}
+			}
+			return Flux.fromStream(domains.entrySet().stream()
+					.sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+					.limit(limit)
+					.map(entry -> new EmailDomainCount(entry.getKey(), entry.getValue())));
+		}), LAYER, "countByEmailDomain");
+	}
+
+	@Override
+	public Mono<User> update(final String id, final User changes, final Long expectedVersion) {
+		return write("update", () -> {
+			User current = users.get(id);
+			if (current == null || (expectedVersion != null && !expectedVersion.equals(current.getVersion()))) {
+				return null;
+			}
+			if (emailTaken(changes.getEmail(), id)) {
+				throw new DuplicateKeyException("E-mail already registered");
+			}
+			User updated = apply(current, changes);
+			put(updated, UserChange.Type.UPDATED);
+			return view(updated);
+		});
+	}
+
+	@Override
+	public Mono<Boolean> existsById(final String id) {
+		return metrics.timed(Mono.fromSupplier(() -> users.containsKey(id)), LAYER, "existsById");
+	}
+
+	@Override
+	public Mono<Boolean> existsByEmail(final String email, final String excludedId) {
+		return metrics.timed(Mono.fromSupplier(() -> emailTaken(email, excludedId)), LAYER, "existsByEmail");
+	}
+
+	@Override
+	public Mono<Boolean> delete(final String id, final Long expectedVersion) {
+		return write("delete", () -> {
+			User current = users.get(id);
+			if (current == null || (expectedVersion != null && !expectedVersion.equals(current.getVersion()))) {
+				return false;
+			}
+			remove(id);
+			return true;
+		});
+	}
+
+	@Override
+	public Flux<UserChange> watch(final String resumeAfter) {
+		return changes.asFlux();
+	}
+
+	@Override
+	public void destroy() throws IOException {
+		writer.dispose();
+		if (log != null) {
+			log.close();
+		}
+	}
+
+	private <T> Mono<T> write(final String operation, final Callable<T> action) {
+		return metrics.timed(Mono.fromCallable(action).subscribeOn(writer), LAYER, operation);
+	}
+
+	/**
+	 * Logs the user before storing it, so a write the log refused is neither
+	 * visible to readers nor announced.
+	 */
+	private void put(final User user, final UserChange.Type type) {
+		if (log != null) {
+			log.put(user);
+		}
+		store(user);
+		changes.tryEmitNext(new UserChange(String.valueOf(sequence.incrementAndGet()), type, user.getId(), view(user)));
+	}
+
+	private boolean remove(final String id) {
+		if (!users.containsKey(id)) {
+			return false;
+		}
+		if (log != null) {
+			log.delete(id);
+		}
+		evict(id);
+		changes.tryEmitNext(new UserChange(String.valueOf(sequence.incrementAndGet()), UserChange.Type.DELETED, id, null));
+		return true;
+	}
+
+	/**
+	 * Puts the user and moves its index entries. The new entries are added
+	 * before the stale ones are removed, so lock-free readers never see the
+	 * user's e-mail as free in between. Only called from the writer thread, or
+	 * while replaying the log before the store is published.
+	 */
+	private void store(final User user) {
+		User previous = users.put(user.getId(), user);
+		if (user.getEmail() != null) {
+			emails.put(user.getEmail(), user.getId());
+		}
+		for (SearchField field : SearchField.values()) {
+			String value = field.valueOf(user);
+			if (value != null) {
+				indexes.get(field).add(new SearchCursor(value, user.getId()));
+			}
+		}
+		if (previous == null) {
+			return;
+		}
+		if (previous.getEmail() != null && !previous.getEmail().equals(user.getEmail())) {
+			emails.remove(previous.getEmail(), previous.getId());
+		}
+		for (SearchField field : SearchField.values()) {
+			String stale = field.valueOf(previous);
+			if (stale != null && !stale.equals(field.valueOf(user))) {
+				indexes.get(field).remove(new SearchCursor(stale, previous.getId()));
+			}
+		}
+	}
+
+	private boolean evict(final String id) {
+		User previous = users.remove(id);
+		if (previous == null) {
+			return false;
+		}
+		unindex(previous);
+		return true;
+	}
+
+	private void unindex(final User user) {
+		if (user.getEmail() != null) {
+			emails.remove(user.getEmail(), user.getId());
+		}
+		for (SearchField field : SearchField.values()) {
+			String value = field.valueOf(user);
+			if (value != null) {
+				indexes.get(field).remove(new SearchCursor(value, user.getId()));
+			}
+		}
+	}
+
+	private boolean emailTaken(final String email, final String id) {
+		if (email == null) {
+			return false;
+		}
+		String owner = emails.get(email);
+		return owner != null && !owner.equals(id);
+	}
+
+	private static User apply(final User current, final User changes) {
+		User updated = copy(current);
+		if (changes.getName() != null) {
+			updated.setName(changes.getName());
+		}
+		if (changes.getEmail() != null) {
+			updated.setEmail(changes.getEmail());
+		}
+		if (changes.getPassword() != null) {
+			updated.setPassword(changes.getPassword());
+		}
+		updated.setVersion(current.getVersion() + 1);
+		return updated;
+	}
+
+	private static User copy(final User user) {
+		return User.builder()
+				.id(user.getId())
+				.name(user.getName())
+				.email(user.getEmail())
+				.password(user.getPassword())
+				.version(user.getVersion())
+				.build();
+	}
+
+	/**
+	 * What a read returns: the stored user without its password.
+	 */
+	private static User view(final User user) {
+		if (user == null) {
+			return null;
+		}
+		return User.builder()
+				.id(user.getId())
+				.name(user.getName())
+				.email(user.getEmail())
+				.version(user.getVersion())
+				.build();
+	}
+
+}
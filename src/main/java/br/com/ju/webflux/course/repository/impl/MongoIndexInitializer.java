@@ -0,0 +1,89 @@
+package br.com.ju.webflux.course.repository.impl;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.index.ReactiveIndexOperations;
+import org.springframework.stereotype.Component;
+
+import br.com.ju.webflux.course.entity.User;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+/**
+ * Creates the indexes declared on {@link User} once the application is ready,
+ * instead of blocking startup on them as {@code auto-index-creation} does.
+ * Creating an index that already exists with the same definition is a no-op,
+ * so this runs on every start. Failures are retried with a growing backoff
+ * until the indexes exist.
+ * <p>
+ * Reported as the {@code userIndexes} health indicator, which stays DOWN until
+ * then and is part of the readiness group: until a fresh collection has its
+ * indexes, e-mail uniqueness would rest on the service's own lookup alone.
+ */
+@Slf4j
+@Component("userIndexesHealthIndicator")
+@Profile("!embedded")
+public class MongoIndexInitializer implements HealthIndicator {
+
+	private static final Duration FIRST_BACKOFF = Duration.ofSeconds(1);
+	private static final Duration MAX_BACKOFF = Duration.ofMinutes(1);
+
+	private final ReactiveMongoTemplate mongoTemplate;
+	private volatile List<String> ensured;
+	private volatile Throwable lastFailure;
+
+	public MongoIndexInitializer(final ReactiveMongoTemplate mongoTemplate) {
+		this.mongoTemplate = mongoTemplate;
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void onReady() {
+		long start = System.nanoTime();
+		ensureIndexes()
+		.doOnError(ex -> {
+			lastFailure = ex;
+			log.warn("Could not ensure user indexes, will retry", ex);
+		})
+		.retryWhen(Retry.backoff(Long.MAX_VALUE, FIRST_BACKOFF).maxBackoff(MAX_BACKOFF))
+		.subscribe(names -> log.info("Ensured user indexes {} in {} ms", names,
+				Duration.ofNanos(System.nanoTime() - start).toMillis()));
+	}
+
+	@Override
+	public Health health() {
+		List<String> names = ensured;
+		if (names != null) {
+			return Health.up().withDetail("indexes", names).build();
+		}
+		Throwable failure = lastFailure;
+		return failure == null ? Health.down().build() : Health.down(failure).build();
+	}
+
+	/**
+	 * Ensures each index resolved from the entity's annotations, one at a time.
+	 *
+	 * @return the names of the ensured indexes
+	 */
+	Mono<List<String>> ensureIndexes() {
+		ReactiveIndexOperations indexes = mongoTemplate.indexOps(User.class);
+		return Flux.fromIterable(new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext())
+				.resolveIndexFor(User.class))
+				.concatMap(indexes::ensureIndex)
+				.collectList()
+				.doOnNext(names -> {
+					ensured = names;
+					lastFailure = null;
+				});
+	}
+
+}
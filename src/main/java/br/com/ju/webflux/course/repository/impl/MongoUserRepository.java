@@ -0,0 +1,599 @@
+package br.com.ju.webflux.course.repository.impl;
+
+import static org.springframework.data.domain.Sort.Direction.ASC;
+import static org.springframework.data.domain.Sort.Direction.DESC;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonTimestamp;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
+import org.springframework.data.mongodb.core.ChangeStreamOptions;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.ArrayOperators;
+import org.springframework.data.mongodb.core.aggregation.StringOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import com.mongodb.ClientSessionOptions;
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ReadPreference;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.WriteModel;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.reactivestreams.client.ClientSession;
+
+import br.com.ju.webflux.course.config.DeleteProperties;
+import br.com.ju.webflux.course.config.MongoDriverProperties;
+import br.com.ju.webflux.course.config.ReadRoutingProperties;
+import br.com.ju.webflux.course.entity.User;
+import br.com.ju.webflux.course.entity.UserChange;
+import br.com.ju.webflux.course.model.request.SearchCursor;
+import br.com.ju.webflux.course.model.request.SearchField;
+import br.com.ju.webflux.course.model.response.EmailDomainCount;
+import br.com.ju.webflux.course.metrics.UserMetrics;
+import br.com.ju.webflux.course.repository.ConsistencyToken;
+import br.com.ju.webflux.course.repository.UserRepository;
+import br.com.ju.webflux.course.repository.WriteError;
+import lombok.Generated;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * {@link UserRepository} on MongoDB through {@link ReactiveMongoTemplate}, or
+ * straight through the driver where Spring Data has no reactive equivalent.
+ * <p>
+ * Writes always go to the primary. Reads are routed per operation by
+ * {@link ReadRoutingProperties}: the listed ones go through a second template
+ * preferring secondaries, the others stay on the primary. While routing is
+ * enabled, single-user writes made under a {@link ConsistencyToken} run in a
+ * causally consistent session and advance the token to their operation time,
+ * and {@code findById} under a token that has one reads in a session that
+ * waits for the secondary to reach it.
+ */
+@Repository
+@Profile("!embedded")
+@Generated
+public class MongoUserRepository implements UserRepository {
+	
+	private static final String LAYER = "repository";
+	private static final ClientSessionOptions CAUSAL = ClientSessionOptions.builder().causallyConsistent(true).build();
+	
+	private final ReactiveMongoTemplate mongoTemplate;
+	private final ReactiveMongoTemplate secondaryTemplate;
+	private final UserMetrics metrics;
+	private final DeleteProperties deletion;
+	private final ReadRoutingProperties routing;
+	private final int cursorBatchSize;
+	
+	public MongoUserRepository(final ReactiveMongoTemplate mongoTemplate, final UserMetrics metrics,
+			final DeleteProperties deletion, final ReadRoutingProperties routing, final MongoDriverProperties driver) {
+		this.mongoTemplate = mongoTemplate;
+		this.metrics = metrics;
+		this.deletion = deletion;
+		this.routing = routing;
+		this.cursorBatchSize = driver.cursorBatchSize();
+		this.secondaryTemplate = new ReactiveMongoTemplate(mongoTemplate.getMongoDatabaseFactory(), mongoTemplate.getConverter());
+		secondaryTemplate.setReadPreference(
+				ReadPreference.secondaryPreferred(routing.maxStaleness().toSeconds(), TimeUnit.SECONDS));
+	}
+	
+	@Override
+	public Mono<User> save(final User user){
+		return metrics.timed(tracked(operations -> operations.save(user)), LAYER, "save");
+	}
+
+	/**
+	 * Inserts the users with a single unordered insertMany, assigning ids to the
+	 * users that have none and starting them at version 0, as {@code save} does.
+	 * Documents rejected by the server are reported by their position in
+	 * {@code users}; the others are inserted regardless.
+	 */
+	@Override
+	public Mono<List<WriteError>> insertAll(final List<User> users){
+		final List<Document> documents = new ArrayList<>(users.size());
+		for (User user : users) {
+			if (user.getId() == null) {
+				user.setId(ObjectId.get().toHexString());
+			}
+			if (user.getVersion() == null) {
+				user.setVersion(0L);
+			}
+			Document document = new Document();
+			mongoTemplate.getConverter().write(user, document);
+			documents.add(document);
+		}
+		return metrics.timed(mongoTemplate.getCollection(mongoTemplate.getCollectionName(User.class))
+				.flatMap(collection -> Mono.from(
+						collection.insertMany(documents, new InsertManyOptions().ordered(false))))
+				.map(result -> List.<WriteError>of())
+				.onErrorResume(MongoBulkWriteException.class, ex -> Mono.just(writeErrors(ex))),
+				LAYER, "insertAll");
+	}
+
+	/**
+	 * Applies the non-null fields of each user to the stored user with the same
+	 * id, all in one unordered bulkWrite. Failed updates are reported by their
+	 * position in {@code changes}; the others are applied regardless. When fewer
+	 * users matched than were sent, the ids still live afterwards tell which
+	 * updates found nothing.
+	 */
+	@Override
+	public Mono<List<WriteError>> updateAll(final List<User> changes){
+		final List<WriteModel<Document>> models = new ArrayList<>(changes.size());
+		final List<String> ids = new ArrayList<>(changes.size());
+		for (User user : changes) {
+			models.add(new UpdateOneModel<>(filter(user.getId()), changes(user).getUpdateObject()));
+			ids.add(user.getId());
+		}
+		return metrics.timed(bulkWrite(models)
+				.flatMap(result -> unmatched(result, ids, this::findExistingIds)),
+				LAYER, "updateAll");
+	}
+
+	/**
+	 * Deletes the users in one unordered bulkWrite, following the configured
+	 * delete mode. Failed deletes are reported by their position in {@code ids}.
+	 * <p>
+	 * Every user is tombstoned with the same {@code deletedAt}, so when fewer
+	 * users matched than were sent, the ones carrying that stamp are the ones
+	 * this call deleted. In hard mode the stamped users are then removed; the
+	 * change stream reports only that removal.
+	 */
+	@Override
+	public Mono<List<WriteError>> deleteAll(final List<String> ids){
+		final Instant stamp = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+		final List<WriteModel<Document>> models = new ArrayList<>(ids.size());
+		for (String id : ids) {
+			models.add(new UpdateOneModel<>(filter(id), tombstone(stamp).getUpdateObject()));
+		}
+		Mono<List<WriteError>> deleted = bulkWrite(models)
+				.flatMap(result -> unmatched(result, ids, candidates -> stamped(candidates, stamp)));
+		if (!deletion.soft()) {
+			deleted = deleted.flatMap(errors -> mongoTemplate.remove(
+					new Query(Criteria.where("id").in(ids).and("deletedAt").is(stamp)), User.class)
+					.thenReturn(errors));
+		}
+		return metrics.timed(deleted, LAYER, deletion.soft() ? "softDeleteAll" : "deleteAll");
+	}
+
+	/**
+	 * Returns which of {@code ids} belong to live users, fetching nothing but ids.
+	 */
+	@Override
+	public Flux<String> findExistingIds(final Collection<String> ids) {
+		Query query = visible(new Query(Criteria.where("id").in(ids)));
+		query.fields().include("id");
+		return metrics.timed(mongoTemplate.find(query, User.class).map(User::getId), LAYER, "findExistingIds");
+	}
+
+	@Override
+	public Mono<User> findById(String id) {
+		return metrics.timed(
+				causal("findById", operations ->
+						operations.findOne(projected(visible(new Query(Criteria.where("id").is(id)))), User.class)),
+				LAYER, "findById");
+	}
+
+	@Override
+	public Flux<User> findAllById(final Collection<String> ids) {
+		return metrics.timed(
+				mongoTemplate.find(projected(visible(new Query(Criteria.where("id").in(ids)))), User.class),
+				LAYER, "findAllById");
+	}
+
+	@Override
+	public Flux<String> findAllEmails() {
+		Query query = visible(new Query()).cursorBatchSize(cursorBatchSize);
+		query.fields().include("email").exclude("id");
+		return metrics.timed(reads("findAllEmails").find(query, User.class).mapNotNull(User::getEmail), LAYER, "findAllEmails");
+	}
+
+	@Override
+	public Flux<User> findAll() {
+		Query query = projected(visible(new Query())).cursorBatchSize(cursorBatchSize);
+		return metrics.timed(reads("findAll").find(query, User.class), LAYER, "findAll");
+	}
+
+	@Override
+	public Flux<User> findPage(final String after, final int limit) {
+		Query query = projected(visible(new Query())).with(Sort.by(ASC, "id")).limit(limit);
+		if (after != null) {
+			query.addCriteria(Criteria.where("id").gt(after));
+		}
+		return metrics.timed(reads("findPage").find(query, User.class), LAYER, "findPage");
+	}
+
+	/**
+	 * Finds users whose {@code field} starts with {@code prefix}, ordered by that
+	 * field and then id. The anchored, escaped regex is a plain prefix, so Mongo
+	 * answers it with a range scan of the field's compound index.
+	 */
+	@Override
+	public Flux<User> search(final SearchField field, final String prefix, final SearchCursor after, final int limit) {
+		Query query = projected(visible(new Query(Criteria.where(field.field()).regex("^" + escape(prefix)))))
+				.with(Sort.by(ASC, field.field(), "id"))
+				.limit(limit);
+		if (after != null) {
+			query.addCriteria(new Criteria().orOperator(
+					Criteria.where(field.field()).gt(after.value()),
+					new Criteria().andOperator(
+							Criteria.where(field.field()).is(after.value()),
+							Criteria.where("id").gt(after.id()))));
+		}
+		return metrics.timed(reads("search").find(query, User.class), LAYER, "search");
+	}
+
+	@Override
+	public Flux<User> stream(final int batchSize) {
+		Query query = projected(visible(new Query())).cursorBatchSize(batchSize);
+		return metrics.timed(reads("stream").find(query, User.class), LAYER, "stream");
+	}
+
+	/**
+	 * Counts users from the collection metadata instead of scanning it. With
+	 * soft deletes the metadata also counts tombstones, so the live users are
+	 * counted instead.
+	 */
+	@Override
+	public Mono<Long> count() {
+		ReactiveMongoOperations operations = reads("count");
+		return metrics.timed(deletion.soft()
+				? operations.count(visible(new Query()), User.class)
+				: operations.estimatedCount(User.class),
+				LAYER, "count");
+	}
+
+	/**
+	 * Groups users by the part of the e-mail after {@code @} on the server and
+	 * returns the {@code limit} largest domains.
+	 */
+	@Override
+	public Flux<EmailDomainCount> countByEmailDomain(final int limit) {
+		Aggregation aggregation = Aggregation.newAggregation(
+				Aggregation.match(Criteria.where("deletedAt").is(null)),
+				Aggregation.project()
+				.and(ArrayOperators.ArrayElemAt.arrayOf(StringOperators.valueOf("email").split("@")).elementAt(1))
+				.as("domain"),
+				Aggregation.group("domain").count().as("count"),
+				Aggregation.sort(Sort.by(DESC, "count")),
+				Aggregation.limit(limit));
+		return metrics.timed(
+				reads("countByEmailDomain").aggregate(aggregation, mongoTemplate.getCollectionName(User.class), Document.class)
+				.map(document -> new EmailDomainCount(
+						document.getString("_id"), document.get("count", Number.class).longValue())),
+				LAYER, "countByEmailDomain");
+	}
+
+	/**
+	 * Applies the non-null fields of {@code changes} to the user in a single
+	 * findAndModify and returns the updated document. When {@code expectedVersion}
+	 * is given, the update only matches that version of the document.
+	 */
+	@Override
+	public Mono<User> update(final String id, final User changes, final Long expectedVersion) {
+		Query query = projected(visible(new Query(Criteria.where("id").is(id))));
+		if (expectedVersion != null) {
+			query.addCriteria(Criteria.where("version").is(expectedVersion));
+		}
+		
+		return metrics.timed(
+				tracked(operations -> operations.findAndModify(
+						query, changes(changes), FindAndModifyOptions.options().returnNew(true), User.class)),
+				LAYER, "update");
+	}
+
+	@Override
+	public Mono<Boolean> existsById(final String id) {
+		return metrics.timed(
+				mongoTemplate.exists(visible(new Query(Criteria.where("id").is(id))), User.class), LAYER, "existsById");
+	}
+
+	/**
+	 * Tells whether a user other than {@code excludedId} already has the e-mail.
+	 * Tombstones count, since they hold on to their e-mail in the unique index
+	 * until they are purged.
+	 */
+	@Override
+	public Mono<Boolean> existsByEmail(final String email, final String excludedId) {
+		Query query = new Query(Criteria.where("email").is(email));
+		if (excludedId != null) {
+			query.addCriteria(Criteria.where("id").ne(excludedId));
+		}
+		return metrics.timed(mongoTemplate.exists(query, User.class), LAYER, "existsByEmail");
+	}
+
+	/**
+	 * Deletes the user, only matching {@code expectedVersion} when it is given.
+	 * Neither mode sends the document back: a hard delete is a plain remove and
+	 * a soft delete an update that stamps {@code deletedAt}, leaving the purge
+	 * to the TTL index.
+	 *
+	 * @return whether a live user was deleted
+	 */
+	@Override
+	public Mono<Boolean> delete(final String id, final Long expectedVersion) {
+		Query query = visible(new Query(Criteria.where("id").is(id)));
+		if (expectedVersion != null) {
+			query.addCriteria(Criteria.where("version").is(expectedVersion));
+		}
+		if (deletion.soft()) {
+			return metrics.timed(
+					tracked(operations -> operations.updateFirst(query, tombstone(), User.class))
+					.map(result -> result.getModifiedCount() > 0),
+					LAYER, "softDelete");
+		}
+		return metrics.timed(
+				tracked(operations -> operations.remove(query, User.class))
+				.map(result -> result.getDeletedCount() > 0),
+				LAYER, "delete");
+	}
+
+	/**
+	 * Watches inserts, updates, replaces and deletes on the user collection,
+	 * starting right after {@code resumeAfter} when a token is given. The
+	 * password is stripped from the looked-up documents on the server. In soft
+	 * mode an update that tombstones a user is reported as a delete; in hard mode
+	 * it is the first half of a bulk delete and only the removal is reported.
+	 */
+	@Override
+	public Flux<UserChange> watch(final String resumeAfter) {
+		ChangeStreamOptions.ChangeStreamOptionsBuilder options = ChangeStreamOptions.builder()
+				.fullDocumentLookup(FullDocument.UPDATE_LOOKUP)
+				.filter(Aggregation.newAggregation(Aggregation.project().andExclude("fullDocument.password")));
+		if (resumeAfter != null) {
+			options.resumeAfter(new BsonDocument("_data", new BsonString(resumeAfter)));
+		}
+		return mongoTemplate.changeStream(mongoTemplate.getCollectionName(User.class), options.build(), User.class)
+				.mapNotNull(event -> toChange(event, deletion.soft()));
+	}
+
+	private static UserChange toChange(final ChangeStreamEvent<User> event, final boolean soft) {
+		UserChange.Type type = switch (event.getOperationType()) {
+			case INSERT -> UserChange.Type.CREATED;
+			case UPDATE, REPLACE -> UserChange.Type.UPDATED;
+			case DELETE -> UserChange.Type.DELETED;
+			default -> null;
+		};
+		if (type == null || event.getRaw() == null) {
+			return null;
+		}
+		if (!soft && tombstoned(event.getRaw())) {
+			return null;
+		}
+		User user = event.getBody();
+		if (user != null && user.getDeletedAt() != null) {
+			type = UserChange.Type.DELETED;
+			user = null;
+		}
+		BsonValue token = event.getResumeToken();
+		BsonValue id = event.getRaw().getDocumentKey().get("_id");
+		return new UserChange(
+				token.asDocument().getString("_data").getValue(),
+				type,
+				id.isObjectId() ? id.asObjectId().getValue().toHexString() : id.asString().getValue(),
+				user);
+	}
+
+	/**
+	 * Whether the event is an update that stamped {@code deletedAt}. Judged by
+	 * the update itself, since the looked-up document may already be gone.
+	 */
+	private static boolean tombstoned(final ChangeStreamDocument<Document> raw) {
+		return raw.getUpdateDescription() != null
+				&& raw.getUpdateDescription().getUpdatedFields() != null
+				&& raw.getUpdateDescription().getUpdatedFields().containsKey("deletedAt");
+	}
+
+	/**
+	 * The template {@code operation} reads through: the secondary-preferred one
+	 * when routing sends it to secondaries, the primary one otherwise.
+	 */
+	private ReactiveMongoOperations reads(final String operation) {
+		if (routing.secondary(operation)) {
+			metrics.routed(operation, "secondaryPreferred");
+			return secondaryTemplate;
+		}
+		metrics.routed(operation, "primary");
+		return mongoTemplate;
+	}
+
+	/**
+	 * Reads like {@link #reads(String)}, except under a consistency token with
+	 * an operation time: then the read runs in a causally consistent session
+	 * advanced to it, so whichever node answers has applied the client's writes.
+	 */
+	private <T> Mono<T> causal(final String operation, final Function<ReactiveMongoOperations, Mono<T>> read) {
+		if (!routing.enabled()) {
+			return read.apply(reads(operation));
+		}
+		return Mono.deferContextual(context -> {
+			ConsistencyToken token = context.getOrDefault(ConsistencyToken.class, null);
+			if (token == null || token.operationTime() == 0) {
+				return read.apply(reads(operation));
+			}
+			metrics.routed(operation, "causal");
+			ReactiveMongoTemplate template = routing.secondary(operation) ? secondaryTemplate : mongoTemplate;
+			BsonTimestamp after = new BsonTimestamp(token.operationTime());
+			return Mono.usingWhen(
+					mongoTemplate.getMongoDatabaseFactory().getSession(CAUSAL)
+					.doOnNext(session -> session.advanceOperationTime(after)),
+					session -> read.apply(template.withSession(session)),
+					session -> Mono.fromRunnable(session::close));
+		});
+	}
+
+	/**
+	 * Runs a single-user write on the primary. Under a consistency token it runs
+	 * in a causally consistent session and advances the token to the write's
+	 * operation time.
+	 */
+	private <T> Mono<T> tracked(final Function<ReactiveMongoOperations, Mono<T>> write) {
+		if (!routing.enabled()) {
+			return write.apply(mongoTemplate);
+		}
+		return Mono.deferContextual(context -> {
+			ConsistencyToken token = context.getOrDefault(ConsistencyToken.class, null);
+			if (token == null) {
+				return write.apply(mongoTemplate);
+			}
+			return Mono.usingWhen(
+					mongoTemplate.getMongoDatabaseFactory().getSession(CAUSAL),
+					session -> write.apply(mongoTemplate.withSession(session))
+					.doOnSuccess(result -> advance(token, session)),
+					session -> Mono.fromRunnable(session::close));
+		});
+	}
+
+	private static void advance(final ConsistencyToken token, final ClientSession session) {
+		BsonTimestamp operationTime = session.getOperationTime();
+		if (operationTime != null) {
+			token.advance(operationTime.getValue());
+		}
+	}
+
+	private Mono<BulkResult> bulkWrite(final List<WriteModel<Document>> models) {
+		return mongoTemplate.getCollection(mongoTemplate.getCollectionName(User.class))
+				.flatMap(collection -> Mono.from(
+						collection.bulkWrite(models, new BulkWriteOptions().ordered(false))))
+				.map(result -> new BulkResult(result.getMatchedCount(), List.of()))
+				.onErrorResume(MongoBulkWriteException.class, ex -> Mono.just(
+						new BulkResult(ex.getWriteResult().getMatchedCount(), writeErrors(ex))));
+	}
+
+	/**
+	 * Adds a not-found error for each write that neither failed nor matched a
+	 * user. The write result only counts matches, so when it falls short,
+	 * {@code matched} is asked which of the remaining ids the bulk did reach.
+	 */
+	private static Mono<List<WriteError>> unmatched(final BulkResult result, final List<String> ids,
+			final Function<Collection<String>, Flux<String>> matched) {
+		if (result.matched() + result.errors().size() >= ids.size()) {
+			return Mono.just(result.errors());
+		}
+		final Set<Integer> failed = result.errors().stream().map(WriteError::index).collect(Collectors.toSet());
+		final List<String> candidates = new ArrayList<>(ids.size());
+		for (int i = 0; i < ids.size(); i++) {
+			if (!failed.contains(i)) {
+				candidates.add(ids.get(i));
+			}
+		}
+		return matched.apply(candidates)
+				.collect(Collectors.toSet())
+				.map(reached -> {
+					List<WriteError> errors = new ArrayList<>(result.errors());
+					for (int i = 0; i < ids.size(); i++) {
+						if (!failed.contains(i) && !reached.contains(ids.get(i))) {
+							errors.add(WriteError.notFound(i));
+						}
+					}
+					return errors;
+				});
+	}
+
+	/**
+	 * Returns which of {@code ids} were tombstoned with {@code stamp}.
+	 */
+	private Flux<String> stamped(final Collection<String> ids, final Instant stamp) {
+		Query query = new Query(Criteria.where("id").in(ids).and("deletedAt").is(stamp));
+		query.fields().include("id");
+		return mongoTemplate.find(query, User.class).map(User::getId);
+	}
+
+	private static List<WriteError> writeErrors(final MongoBulkWriteException ex) {
+		List<WriteError> errors = new ArrayList<>(ex.getWriteErrors().size());
+		for (BulkWriteError error : ex.getWriteErrors()) {
+			errors.add(new WriteError(error.getIndex(),
+					ErrorCategory.fromErrorCode(error.getCode()) == ErrorCategory.DUPLICATE_KEY,
+					false, error.getMessage()));
+		}
+		return errors;
+	}
+
+	private record BulkResult(int matched, List<WriteError> errors) {}
+
+	/**
+	 * Matches the live user with {@code id}, converting the id the way the
+	 * mapping layer stores it.
+	 */
+	private static Document filter(final String id) {
+		return new Document("_id", ObjectId.isValid(id) ? new ObjectId(id) : id)
+				.append("deletedAt", null);
+	}
+
+	private static Update changes(final User changes) {
+		Update update = new Update().inc("version", 1);
+		if (changes.getName() != null) {
+			update.set("name", changes.getName());
+		}
+		if (changes.getEmail() != null) {
+			update.set("email", changes.getEmail());
+		}
+		if (changes.getPassword() != null) {
+			update.set("password", changes.getPassword());
+		}
+		return update;
+	}
+
+	private static Update tombstone() {
+		return tombstone(Instant.now());
+	}
+
+	private static Update tombstone(final Instant deletedAt) {
+		return new Update().set("deletedAt", deletedAt).inc("version", 1);
+	}
+
+	private static String escape(final String literal) {
+		StringBuilder escaped = new StringBuilder(literal.length() + 8);
+		for (int i = 0; i < literal.length(); i++) {
+			char c = literal.charAt(i);
+			if ("\\^$.|?*+()[]{}".indexOf(c) >= 0) {
+				escaped.append('\\');
+			}
+			escaped.append(c);
+		}
+		return escaped.toString();
+	}
+
+	/**
+	 * Hides soft-deleted users. Live users have no {@code deletedAt} at all, so
+	 * the condition does not change which index a query uses.
+	 */
+	private static Query visible(final Query query) {
+		return query.addCriteria(Criteria.where("deletedAt").is(null));
+	}
+
+	/**
+	 * Restricts the returned documents to the fields a {@code UserResponse}
+	 * needs, so the password never leaves the database on read paths.
+	 */
+	private static Query projected(final Query query) {
+		query.fields().include("id", "name", "email", "version");
+		return query;
+	}
+
+}
@@ -0,0 +1,57 @@
+package br.com.ju.webflux.course.service;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import br.com.ju.webflux.course.config.PasswordProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Hashes passwords with BCrypt on a dedicated bounded scheduler, keeping the
+ * CPU-heavy work off the event loop. The time a hash waits for a free worker
+ * is recorded as {@code users.password.queue.delay} and the hashing itself as
+ * {@code users.password.hash}.
+ */
+@Component
+public class PasswordHasher implements DisposableBean {
+	
+	private final BCryptPasswordEncoder encoder;
+	private final Scheduler scheduler;
+	private final Timer queueDelay;
+	private final Timer hashing;
+	
+	public PasswordHasher(final PasswordProperties properties, final MeterRegistry registry) {
+		this.encoder = new BCryptPasswordEncoder(properties.strength());
+		this.scheduler = Schedulers.newBoundedElastic(
+				properties.threads(), properties.queueCapacity(), "password-hasher");
+		this.queueDelay = registry.timer("users.password.queue.delay");
+		this.hashing = registry.timer("users.password.hash");
+	}
+	
+	public Mono<String> hash(final String rawPassword) {
+		return Mono.defer(() -> {
+			final long submitted = System.nanoTime();
+			return Mono.fromCallable(() -> {
+				queueDelay.record(System.nanoTime() - submitted, NANOSECONDS);
+				return hashing.record(() -> encoder.encode(rawPassword));
+			}).subscribeOn(scheduler);
+		});
+	}
+	
+	public boolean matches(final String rawPassword, final String hash) {
+		return encoder.matches(rawPassword, hash);
+	}
+	
+	@Override
+	public void destroy() {
+		scheduler.dispose();
+	}
+
+}
@@ -0,0 +1,101 @@
+package br.com.ju.webflux.course.service;
+
+import static reactor.core.publisher.BufferOverflowStrategy.DROP_LATEST;
+import static reactor.core.publisher.BufferOverflowStrategy.DROP_OLDEST;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.stereotype.Service;
+
+import br.com.ju.webflux.course.config.EventProperties;
+import br.com.ju.webflux.course.entity.UserChange;
+import br.com.ju.webflux.course.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Multicasts one change stream on the user collection to every live
+ * subscriber. Clients resuming from a token replay the changes after it on a
+ * stream of their own only until they reach the shared stream, and then
+ * continue on the shared one.
+ */
+@Service
+public class UserEventService {
+	
+	private final UserRepository repository;
+	private final EventProperties properties;
+	private final Flux<UserChange> shared;
+	private final Counter dropped;
+	
+	public UserEventService(final UserRepository repository, final EventProperties properties,
+			final MeterRegistry registry) {
+		this.repository = repository;
+		this.properties = properties;
+		this.shared = repository.watch(null)
+				.publish()
+				.refCount(1, properties.gracePeriod());
+		this.dropped = registry.counter("users.events.dropped");
+	}
+	
+	public Flux<UserChange> changes(final String resumeAfter) {
+		Flux<UserChange> source = resumeAfter == null ? shared : resumed(resumeAfter);
+		return switch (properties.overflow()) {
+			case DROP_OLDEST -> source.onBackpressureBuffer(
+					properties.bufferSize(), change -> dropped.increment(), DROP_OLDEST);
+			case DROP_LATEST -> source.onBackpressureBuffer(
+					properties.bufferSize(), change -> dropped.increment(), DROP_LATEST);
+			case LATEST -> source.onBackpressureLatest();
+		};
+	}
+	
+	/**
+	 * Joins the shared stream right away, holding back what it delivers, and
+	 * replays from {@code resumeAfter} on a dedicated stream. Once the replay
+	 * reaches a change the shared stream has delivered, or the shared stream
+	 * delivers one the replay has already sent, the dedicated stream is closed
+	 * and the held-back changes not already replayed follow.
+	 */
+	private Flux<UserChange> resumed(final String resumeAfter) {
+		return Flux.defer(() -> {
+			final Set<String> replayed = ConcurrentHashMap.newKeySet();
+			final Set<String> delivered = ConcurrentHashMap.newKeySet();
+			final AtomicBoolean joined = new AtomicBoolean();
+			final Sinks.One<Boolean> caughtUp = Sinks.one();
+			final Sinks.Many<UserChange> live = Sinks.many().unicast().onBackpressureBuffer();
+			
+			Disposable subscription = shared.subscribe(change -> {
+				if (!joined.get()) {
+					delivered.add(change.resumeToken());
+					if (replayed.contains(change.resumeToken())) {
+						caughtUp.tryEmitValue(true);
+					}
+				}
+				live.tryEmitNext(change);
+			}, live::tryEmitError, live::tryEmitComplete);
+			
+			Flux<UserChange> replay = repository.watch(resumeAfter)
+					.doOnNext(change -> replayed.add(change.resumeToken()))
+					.takeUntil(change -> delivered.contains(change.resumeToken()))
+					.takeUntilOther(caughtUp.asMono())
+					.doFinally(signal -> {
+						joined.set(true);
+						delivered.clear();
+					});
+			return replay
+					.concatWith(live.asFlux().skipWhile(change -> {
+						boolean duplicate = replayed.remove(change.resumeToken());
+						if (!duplicate) {
+							replayed.clear();
+						}
+						return duplicate;
+					}))
+					.doFinally(signal -> subscription.dispose());
+		});
+	}
+
+}
@@ -0,0 +1,189 @@
+package br.com.ju.webflux.course.service;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import br.com.ju.webflux.course.entity.User;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Journal of accepted but not yet stored users. Records are framed as
+ * {@code [length][crc32][payload]} and appended in groups with a single
+ * fsync per group. A companion {@code .offset} file holds the position up to
+ * which records have been stored; once it reaches the end of the journal
+ * both files are truncated. Not thread-safe: callers confine it to one
+ * thread.
+ */
+@Slf4j
+class UserJournal implements Closeable {
+
+	private static final int HEADER = Integer.BYTES * 2;
+
+	private final FileChannel journal;
+	private final FileChannel offset;
+	private final List<Entry> pending;
+	private boolean broken;
+
+	record Entry(User user, long acceptedAt, long end) {}
+
+	private UserJournal(final FileChannel journal, final FileChannel offset, final List<Entry> pending) {
+		this.journal = journal;
+		this.offset = offset;
+		this.pending = pending;
+	}
+
+	/**
+	 * Opens the journal and reads back the records past the stored offset.
+	 */
+	static UserJournal open(final Path path) throws IOException {
+		FileChannel journal = FileChannel.open(path, CREATE, READ, WRITE);
+		FileChannel offset = FileChannel.open(path.resolveSibling(path.getFileName() + ".offset"), CREATE, READ, WRITE);
+
+		long start = 0;
+		ByteBuffer stored = ByteBuffer.allocate(Long.BYTES);
+		if (offset.read(stored, 0) == Long.BYTES) {
+			start = stored.flip().getLong();
+		}
+
+		List<Entry> pending = new ArrayList<>();
+		long position = start;
+		ByteBuffer header = ByteBuffer.allocate(HEADER);
+		while (journal.read(header.clear(), position) == HEADER) {
+			int length = header.flip().getInt();
+			int crc = header.getInt();
+			ByteBuffer payload = ByteBuffer.allocate(Math.max(length, 0));
+			if (length <= 0 || journal.read(payload, position + HEADER) != length || crc != crc(payload.array())) {
+				break;
+			}
+			position += HEADER + length;
+			pending.add(decode(payload.array(), position));
+		}
+		if (position < journal.size()) {
+			log.warn("Dropped {} bytes of torn records at the end of {}", journal.size() - position, path);
+			journal.truncate(position);
+		}
+		journal.position(position);
+		if (!pending.isEmpty()) {
+			log.info("Replaying {} journaled users from {}", pending.size(), path);
+		}
+		return new UserJournal(journal, offset, pending);
+	}
+
+	/**
+	 * The records found past the stored offset when the journal was opened.
+	 */
+	List<Entry> pending() {
+		return pending;
+	}
+
+	/**
+	 * Appends the users and forces them to disk once for the whole group. When
+	 * the write or the force fails, the journal is cut back to where the group
+	 * started, so the callers told of the failure are not replayed later and
+	 * the next group does not land behind a torn record. A journal that cannot
+	 * be cut back refuses further appends.
+	 */
+	List<Entry> append(final List<User> users, final long acceptedAt) throws IOException {
+		if (broken) {
+			throw new IOException("Journal could not be rolled back after a failed append");
+		}
+		List<Entry> entries = new ArrayList<>(users.size());
+		ByteBuffer[] records = new ByteBuffer[users.size()];
+		final long start = journal.position();
+		long position = start;
+		for (int i = 0; i < users.size(); i++) {
+			records[i] = encode(users.get(i), acceptedAt);
+			position += records[i].remaining();
+			entries.add(new Entry(users.get(i), acceptedAt, position));
+		}
+		try {
+			while (records[records.length - 1].hasRemaining()) {
+				journal.write(records);
+			}
+			journal.force(false);
+		} catch (IOException ex) {
+			rollback(start, ex);
+			throw ex;
+		}
+		return entries;
+	}
+
+	/**
+	 * Records that everything up to {@code end} has been stored, truncating the
+	 * journal when nothing is left past it.
+	 */
+	void stored(final long end) throws IOException {
+		long next = end;
+		if (end == journal.size()) {
+			journal.truncate(0);
+			next = 0;
+		}
+		offset.write(ByteBuffer.allocate(Long.BYTES).putLong(0, next), 0);
+		offset.force(false);
+	}
+
+	private void rollback(final long start, final IOException cause) {
+		try {
+			journal.truncate(start);
+			journal.position(start);
+			journal.force(false);
+		} catch (IOException ex) {
+			broken = true;
+			cause.addSuppressed(ex);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		journal.close();
+		offset.close();
+	}
+
+	private static ByteBuffer encode(final User user, final long acceptedAt) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(160);
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeUTF(user.getId());
+		out.writeUTF(user.getName());
+		out.writeUTF(user.getEmail());
+		out.writeUTF(user.getPassword());
+		out.writeLong(acceptedAt);
+		byte[] payload = bytes.toByteArray();
+		return ByteBuffer.allocate(HEADER + payload.length)
+				.putInt(payload.length)
+				.putInt(crc(payload))
+				.put(payload)
+				.flip();
+	}
+
+	private static Entry decode(final byte[] payload, final long end) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+		User user = User.builder()
+				.id(in.readUTF())
+				.name(in.readUTF())
+				.email(in.readUTF())
+				.password(in.readUTF())
+				.build();
+		return new Entry(user, in.readLong(), end);
+	}
+
+	private static int crc(final byte[] payload) {
+		CRC32 crc = new CRC32();
+		crc.update(payload);
+		return (int) crc.getValue();
+	}
+
+}
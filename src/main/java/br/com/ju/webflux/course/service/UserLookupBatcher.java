@@ -0,0 +1,102 @@
+package br.com.ju.webflux.course.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import br.com.ju.webflux.course.config.LookupProperties;
+import br.com.ju.webflux.course.entity.User;
+import br.com.ju.webflux.course.repository.ConsistencyToken;
+import br.com.ju.webflux.course.repository.UserRepository;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+/**
+ * Coalesces single-id lookups arriving within {@code users.lookup.coalescing.window}
+ * into one {@code $in} query and completes each waiting caller with its own
+ * result. When coalescing is disabled every lookup goes straight to the
+ * repository, and so does a lookup carrying a {@link ConsistencyToken} with an
+ * operation time: the shared query runs outside the caller's context, so it
+ * could not read at or after the caller's writes.
+ */
+@Component
+public class UserLookupBatcher implements DisposableBean {
+	
+	private final UserRepository repository;
+	private final FluxSink<PendingLookup> pending;
+	private final Disposable pipeline;
+	
+	public UserLookupBatcher(final UserRepository repository, final LookupProperties properties) {
+		this.repository = repository;
+		
+		final LookupProperties.Coalescing coalescing = properties.coalescing();
+		if (coalescing.enabled()) {
+			final AtomicReference<FluxSink<PendingLookup>> sink = new AtomicReference<>();
+			this.pipeline = Flux.<PendingLookup>create(sink::set)
+					.bufferTimeout(coalescing.maxBatchSize(), coalescing.window())
+					.onBackpressureBuffer()
+					.flatMap(this::lookup, coalescing.maxInFlight())
+					.subscribe();
+			this.pending = sink.get();
+		} else {
+			this.pipeline = null;
+			this.pending = null;
+		}
+	}
+	
+	public Mono<User> findById(final String id) {
+		if (pending == null) {
+			return repository.findById(id);
+		}
+		return Mono.deferContextual(context -> {
+			ConsistencyToken token = context.getOrDefault(ConsistencyToken.class, null);
+			if (token != null && token.operationTime() != 0) {
+				return repository.findById(id);
+			}
+			return Mono.create(sink -> pending.next(new PendingLookup(id, sink)));
+		});
+	}
+	
+	@Override
+	public void destroy() {
+		if (pipeline != null) {
+			pending.complete();
+			pipeline.dispose();
+		}
+	}
+	
+	private Mono<Void> lookup(final List<PendingLookup> batch) {
+		final Map<String, List<MonoSink<User>>> waiting = new HashMap<>(batch.size() * 2);
+		for (PendingLookup lookup : batch) {
+			waiting.computeIfAbsent(key(lookup.id()), key -> new ArrayList<>(1)).add(lookup.sink());
+		}
+		
+		return repository.findAllById(new ArrayList<>(waiting.keySet()))
+				.doOnNext(user -> {
+					List<MonoSink<User>> sinks = waiting.remove(user.getId());
+					if (sinks != null) {
+						sinks.forEach(sink -> sink.success(user));
+					}
+				})
+				.doOnComplete(() -> waiting.values().forEach(sinks -> sinks.forEach(MonoSink::success)))
+				.doOnError(ex -> waiting.values().forEach(sinks -> sinks.forEach(sink -> sink.error(ex))))
+				.onErrorResume(ex -> Mono.empty())
+				.then();
+	}
+	
+	private static String key(final String id) {
+		return ObjectId.isValid(id) ? id.toLowerCase() : id;
+	}
+	
+	private record PendingLookup(String id, MonoSink<User> sink) {}
+
+}
@@ -1,53 +1,319 @@
 package br.com.ju.webflux.course.service;
 
-import static java.lang.String.format;
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toMap;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 
+import br.com.ju.webflux.course.cache.EmailFilter;
+import br.com.ju.webflux.course.cache.UserCache;
 import br.com.ju.webflux.course.entity.User;
 import br.com.ju.webflux.course.mapper.UserMapper;
+import br.com.ju.webflux.course.metrics.UserMetrics;
+import br.com.ju.webflux.course.model.request.SearchCursor;
+import br.com.ju.webflux.course.model.request.SearchField;
 import br.com.ju.webflux.course.model.request.UserRequest;
+import br.com.ju.webflux.course.model.request.UserUpdateRequest;
+import br.com.ju.webflux.course.model.response.UserBatchResponse;
 import br.com.ju.webflux.course.repository.UserRepository;
+import br.com.ju.webflux.course.repository.WriteError;
 import br.com.ju.webflux.course.service.exception.ObjectNotFoundException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
 
 @Service
 @RequiredArgsConstructor
 public class UserService {
 	
+	private static final String LAYER = "service";
+	
 	private final UserRepository repository;
 	private final UserMapper mapper;
+	private final UserCache cache;
+	private final Validator validator;
+	private final UserMetrics metrics;
+	private final UserLookupBatcher batcher;
+	private final EmailFilter emailFilter;
+	private final PasswordHasher hasher;
+	private final UserWriteBehind writeBehind;
 	
+	/**
+	 * Stores the new user, or only journals it when write-behind is enabled, in
+	 * which case the user reaches the repository later.
+	 */
 	public Mono<User> save(final UserRequest request){
-		return repository.save(mapper.toEntity(request));
+		return metrics.timed(checkEmailAvailable(request.email(), null)
+				.then(Mono.defer(() -> hashPassword(toEntity(request))))
+				.flatMap(user -> writeBehind.isEnabled() ? writeBehind.accept(user) : repository.save(user))
+				.doOnNext(this::saved), LAYER, "save");
+	}
+	
+	public boolean isWriteBehind(){
+		return writeBehind.isEnabled();
+	}
+	
+	public Flux<UserBatchResponse> saveAll(final Flux<UserRequest> requests, final int chunkSize){
+		return metrics.timed(requests.index()
+				.buffer(chunkSize)
+				.concatMap(this::saveChunk), LAYER, "saveAll");
+	}
+	
+	/**
+	 * Updates users in chunks of {@code chunkSize}, with up to
+	 * {@code maxInFlight} chunks written at once. Results are emitted per chunk
+	 * as soon as it is written, so they are not in input order.
+	 */
+	public Flux<UserBatchResponse> updateAll(final Flux<UserUpdateRequest> requests, final int chunkSize,
+			final int maxInFlight){
+		return metrics.timed(requests.index()
+				.buffer(chunkSize)
+				.flatMap(this::updateChunk, maxInFlight), LAYER, "updateAll");
+	}
+	
+	/**
+	 * Deletes users in chunks of {@code chunkSize}, with up to
+	 * {@code maxInFlight} chunks written at once. Results are emitted per chunk
+	 * as soon as it is written, so they are not in input order.
+	 */
+	public Flux<UserBatchResponse> deleteAll(final Flux<String> ids, final int chunkSize, final int maxInFlight){
+		return metrics.timed(ids.index()
+				.buffer(chunkSize)
+				.flatMap(this::deleteChunk, maxInFlight), LAYER, "deleteAll");
 	}
 	
+	/**
+	 * Completes empty when there is no such user, leaving the 404 to the caller
+	 * instead of raising an exception on what is a routine outcome. The cache
+	 * subscribes to loads on its own, so the caller's context is handed to them.
+	 */
 	public Mono<User> findById(final String id){
-		return handleNotFound(repository.findById(id), id);
-				
+		return metrics.timed(Mono.deferContextual(context ->
+				cache.get(id, key -> batcher.findById(key).contextWrite(context))), LAYER, "findById");
+	}
+	
+	public Flux<User> findAllById(final Collection<String> ids){
+		return metrics.timed(repository.findAllById(ids), LAYER, "findAllById");
 	}
 	
 	public Flux<User> findAll(){
-		return repository.findAll();
+		return metrics.timed(repository.findAll(), LAYER, "findAll");
+	}
+	
+	public Flux<User> findPage(final String after, final int limit){
+		return metrics.timed(repository.findPage(after, limit), LAYER, "findPage");
 	}
 	
-	public Mono<User> update(final String id, final UserRequest request){
-		return findById(id)
-				.map(entity -> mapper.toEntity(request, entity))
-				.flatMap(repository::save);
+	public Flux<User> search(final SearchField field, final String prefix, final SearchCursor after, final int limit){
+		return metrics.timed(repository.search(field, prefix, after, limit), LAYER, "search");
 	}
 	
-	public Mono<User> delete(final String id){
-		return handleNotFound(repository.findAndRemove(id), id);
+	public Flux<User> stream(final int batchSize){
+		return metrics.timed(repository.stream(batchSize)
+				.limitRate(batchSize), LAYER, "stream");
+	}
+	
+	public Mono<User> update(final String id, final UserRequest request, final Long version){
+		return metrics.timed(checkEmailAvailable(request.email(), id)
+				.then(Mono.defer(() -> hashPassword(toEntity(request))))
+				.flatMap(changes -> repository.update(id, changes, version))
+				.switchIfEmpty(Mono.defer(() -> conflictOrNotFound(id, version)))
+				.doOnNext(this::saved)
+				.doOnError(ex -> cache.invalidate(id)), LAYER, "update");
+	}
+	
+	public Mono<Void> delete(final String id, final Long version){
+		return metrics.timed(repository.delete(id, version)
+				.filter(Boolean::booleanValue)
+				.switchIfEmpty(Mono.defer(() -> conflictOrNotFound(id, version)))
+				.doFinally(signal -> cache.invalidate(id))
+				.then(), LAYER, "delete");
 				
 	}
 
+	private Flux<UserBatchResponse> saveChunk(final List<Tuple2<Long, UserRequest>> chunk){
+		final List<UserBatchResponse> results = new ArrayList<>(chunk.size());
+		final List<Long> positions = new ArrayList<>(chunk.size());
+		final List<User> users = new ArrayList<>(chunk.size());
+		
+		for (Tuple2<Long, UserRequest> item : chunk) {
+			Set<ConstraintViolation<UserRequest>> violations = metrics.validating(UserRequest.class,
+					() -> validator.validate(item.getT2()));
+			if (violations.isEmpty()) {
+				positions.add(item.getT1());
+				users.add(toEntity(item.getT2()));
+			} else {
+				results.add(UserBatchResponse.rejected(item.getT1(), describe(violations)));
+			}
+		}
+		
+		if (users.isEmpty()) {
+			return Flux.fromIterable(results);
+		}
+		
+		return Flux.fromIterable(users)
+				.flatMap(this::hashPassword)
+				.then(Mono.defer(() -> repository.insertAll(users)))
+				.flatMapIterable(errors -> {
+					Map<Integer, WriteError> failed = errors.stream()
+							.collect(toMap(WriteError::index, identity()));
+					for (int i = 0; i < users.size(); i++) {
+						WriteError error = failed.get(i);
+						if (error == null) {
+							emailFilter.put(users.get(i).getEmail());
+							results.add(UserBatchResponse.created(positions.get(i), users.get(i).getId()));
+						} else {
+							results.add(UserBatchResponse.rejected(positions.get(i), reason(error)));
+						}
+					}
+					return results;
+				});
+	}
+	
+	/**
+	 * Validates and hashes the chunk and applies it in one bulk write. Ids that
+	 * matched no live user when the write reached them come back as not found.
+	 */
+	private Flux<UserBatchResponse> updateChunk(final List<Tuple2<Long, UserUpdateRequest>> chunk){
+		final List<UserBatchResponse> results = new ArrayList<>(chunk.size());
+		final List<Long> positions = new ArrayList<>(chunk.size());
+		final List<User> users = new ArrayList<>(chunk.size());
+		
+		for (Tuple2<Long, UserUpdateRequest> item : chunk) {
+			Set<ConstraintViolation<UserUpdateRequest>> violations = metrics.validating(UserUpdateRequest.class,
+					() -> validator.validate(item.getT2()));
+			if (violations.isEmpty()) {
+				positions.add(item.getT1());
+				users.add(metrics.mapping("toEntity", () -> mapper.toEntity(item.getT2())));
+			} else {
+				results.add(UserBatchResponse.rejected(item.getT1(), item.getT2().id(), describe(violations)));
+			}
+		}
+		
+		if (users.isEmpty()) {
+			return Flux.fromIterable(results);
+		}
+		
+		return Flux.fromIterable(users)
+				.flatMap(this::hashPassword)
+				.then(Mono.defer(() -> repository.updateAll(users)))
+				.flatMapIterable(errors -> {
+					Map<Integer, WriteError> failed = errors.stream()
+							.collect(toMap(WriteError::index, identity()));
+					for (int i = 0; i < users.size(); i++) {
+						User user = users.get(i);
+						cache.invalidate(user.getId());
+						WriteError error = failed.get(i);
+						if (error == null) {
+							emailFilter.put(user.getEmail());
+							results.add(UserBatchResponse.updated(positions.get(i), user.getId()));
+						} else if (error.notFound()) {
+							results.add(UserBatchResponse.notFound(positions.get(i), user.getId()));
+						} else {
+							results.add(UserBatchResponse.rejected(positions.get(i), user.getId(), reason(error)));
+						}
+					}
+					return results;
+				});
+	}
+	
+	/**
+	 * Deletes the chunk in one bulk write. Ids that matched no live user when
+	 * the write reached them come back as not found.
+	 */
+	private Flux<UserBatchResponse> deleteChunk(final List<Tuple2<Long, String>> chunk){
+		final List<String> ids = chunk.stream().map(Tuple2::getT2).toList();
+		
+		return repository.deleteAll(ids)
+				.flatMapIterable(errors -> {
+					Map<Integer, WriteError> failed = errors.stream()
+							.collect(toMap(WriteError::index, identity()));
+					final List<UserBatchResponse> results = new ArrayList<>(chunk.size());
+					for (int i = 0; i < chunk.size(); i++) {
+						Long position = chunk.get(i).getT1();
+						cache.invalidate(ids.get(i));
+						WriteError error = failed.get(i);
+						if (error == null) {
+							results.add(UserBatchResponse.deleted(position, ids.get(i)));
+						} else if (error.notFound()) {
+							results.add(UserBatchResponse.notFound(position, ids.get(i)));
+						} else {
+							results.add(UserBatchResponse.rejected(position, ids.get(i), reason(error)));
+						}
+					}
+					return results;
+				});
+	}
+	
+	/**
+	 * Rejects e-mails already used by another user. The indexed lookup only runs
+	 * when the e-mail filter reports a possible duplicate; the unique index still
+	 * guards against concurrent registrations.
+	 */
+	private Mono<Void> checkEmailAvailable(final String email, final String id) {
+		if (email == null || !emailFilter.mightContain(email)) {
+			return Mono.empty();
+		}
+		return repository.existsByEmail(email, id)
+				.flatMap(exists -> exists
+						? Mono.error(new DuplicateKeyException("E-mail already registered"))
+						: Mono.empty());
+	}
+	
+	private Mono<User> hashPassword(final User user) {
+		if (user.getPassword() == null) {
+			return Mono.just(user);
+		}
+		return hasher.hash(user.getPassword())
+				.map(hash -> {
+					user.setPassword(hash);
+					return user;
+				});
+	}
+	
+	private void saved(final User user) {
+		cache.put(user);
+		emailFilter.put(user.getEmail());
+	}
+	
+	private User toEntity(final UserRequest request) {
+		return metrics.mapping("toEntity", () -> mapper.toEntity(request));
+	}
+	
+	private static String reason(final WriteError error) {
+		return error.duplicateKey() ? "E-mail already registered" : error.message();
+	}
+	
+	private static <T> String describe(final Set<ConstraintViolation<T>> violations) {
+		return violations.stream()
+				.map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+				.sorted()
+				.collect(joining("; "));
+	}
+
+	private <T> Mono<T> conflictOrNotFound(final String id, final Long version){
+		if (version == null) {
+			return handleNotFound(Mono.empty(), id);
+		}
+		return handleNotFound(repository.existsById(id).filter(Boolean::booleanValue), id)
+				.flatMap(exists -> Mono.<T>error(new OptimisticLockingFailureException(
+						"Version " + version + " of user " + id + " is no longer current")));
+	}
+
 	private <T> Mono<T> handleNotFound(Mono<T> mono, String id){
-		return mono.switchIfEmpty(Mono.error(
-				new ObjectNotFoundException(
-						format("Object not found. Id: %s, Type: %s ", id, User.class.getSimpleName()))));
+		return mono.switchIfEmpty(Mono.error(() -> new ObjectNotFoundException(id, User.class)));
 	}
 	
 }
@@ -0,0 +1,42 @@
+package br.com.ju.webflux.course.service;
+
+import java.time.Duration;
+
+import org.springframework.stereotype.Service;
+
+import br.com.ju.webflux.course.config.StatsProperties;
+import br.com.ju.webflux.course.model.response.UserStatsResponse;
+import br.com.ju.webflux.course.repository.UserRepository;
+import reactor.core.publisher.Mono;
+
+@Service
+public class UserStatsService {
+	
+	private final Mono<Long> count;
+	private final Mono<UserStatsResponse> stats;
+	
+	public UserStatsService(final UserRepository repository, final StatsProperties properties) {
+		this.count = refreshing(Mono.defer(repository::count), properties.refreshInterval());
+		this.stats = refreshing(Mono.defer(() -> Mono.zip(
+				repository.count(),
+				repository.countByEmailDomain(properties.topEmailDomains()).collectList(),
+				UserStatsResponse::new)),
+				properties.refreshInterval());
+	}
+	
+	public Mono<Long> count() {
+		return count;
+	}
+	
+	public Mono<UserStatsResponse> stats() {
+		return stats;
+	}
+	
+	private static <T> Mono<T> refreshing(final Mono<T> source, final Duration interval) {
+		if (interval.isZero()) {
+			return source;
+		}
+		return source.cache(value -> interval, error -> Duration.ZERO, () -> Duration.ZERO);
+	}
+
+}
@@ -0,0 +1,216 @@
+package br.com.ju.webflux.course.service;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import br.com.ju.webflux.course.cache.UserCache;
+import br.com.ju.webflux.course.config.WriteBehindProperties;
+import br.com.ju.webflux.course.entity.User;
+import br.com.ju.webflux.course.repository.UserRepository;
+import br.com.ju.webflux.course.repository.WriteError;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
+
+/**
+ * Acknowledges new users as soon as they are journaled and stores them in the
+ * background. Accepted users are grouped within the commit window and
+ * appended with one fsync per group; the drain inserts journaled users in
+ * batches and moves the journal offset past them once stored. Users still in
+ * the journal on shutdown are replayed on the next start.
+ * <p>
+ * Publishes {@code users.writebehind.backlog} (journaled, not yet stored),
+ * {@code users.writebehind.lag} (acceptance to storage),
+ * {@code users.writebehind.commit} (group size per fsync) and
+ * {@code users.writebehind.rejected} (users the store refused after they
+ * were acknowledged, such as an e-mail registered in the meantime). Rejected
+ * users are evicted from the {@link UserCache}, where saving put them.
+ */
+@Slf4j
+@Component
+public class UserWriteBehind implements DisposableBean {
+
+	private final WriteBehindProperties properties;
+	private final UserRepository repository;
+	private final UserCache cache;
+	private final CountDownLatch committed = new CountDownLatch(1);
+	private final Queue<UserJournal.Entry> backlog = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger backlogSize = new AtomicInteger();
+	private final UserJournal journal;
+	private final Scheduler scheduler;
+	private final FluxSink<PendingWrite> pending;
+	private final Disposable committer;
+	private final Disposable drainer;
+	private final Timer lag;
+	private final Counter rejected;
+	private final DistributionSummary commitSize;
+
+	public UserWriteBehind(final WriteBehindProperties properties, final UserRepository repository,
+			final UserCache cache, final MeterRegistry registry) {
+		this.properties = properties;
+		this.repository = repository;
+		this.cache = cache;
+		this.lag = registry.timer("users.writebehind.lag");
+		this.rejected = registry.counter("users.writebehind.rejected");
+		this.commitSize = registry.summary("users.writebehind.commit");
+		Gauge.builder("users.writebehind.backlog", backlogSize, AtomicInteger::get).register(registry);
+
+		if (!properties.enabled()) {
+			this.journal = null;
+			this.scheduler = null;
+			this.pending = null;
+			this.committer = null;
+			this.drainer = null;
+			return;
+		}
+
+		try {
+			this.journal = UserJournal.open(properties.journal());
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+		journal.pending().forEach(this::enqueue);
+
+		this.scheduler = Schedulers.newSingle("users-journal");
+		final AtomicReference<FluxSink<PendingWrite>> sink = new AtomicReference<>();
+		this.committer = Flux.<PendingWrite>create(sink::set)
+				.bufferTimeout(properties.maxCommitSize(), properties.commitWindow())
+				.onBackpressureBuffer()
+				.publishOn(scheduler)
+				.doFinally(signal -> committed.countDown())
+				.subscribe(this::commit);
+		this.pending = sink.get();
+		this.drainer = Flux.interval(properties.drainInterval())
+				.onBackpressureDrop()
+				.concatMap(tick -> drain(), 1)
+				.subscribe();
+	}
+
+	public boolean isEnabled() {
+		return properties.enabled();
+	}
+
+	/**
+	 * Assigns the user an id and completes once the user is durably journaled.
+	 */
+	public Mono<User> accept(final User user) {
+		return Mono.create(sink -> {
+			if (user.getId() == null) {
+				user.setId(ObjectId.get().toHexString());
+			}
+			pending.next(new PendingWrite(user, sink));
+		});
+	}
+
+	/**
+	 * Stops accepting, then waits up to the shutdown timeout for the groups
+	 * already accepted to be journaled and answered before closing the journal.
+	 */
+	@Override
+	public void destroy() throws IOException, InterruptedException {
+		if (journal == null) {
+			return;
+		}
+		pending.complete();
+		if (!committed.await(properties.shutdownTimeout().toMillis(), MILLISECONDS)) {
+			log.warn("Pending journal commits did not finish within {}", properties.shutdownTimeout());
+		}
+		committer.dispose();
+		drainer.dispose();
+		scheduler.dispose();
+		journal.close();
+	}
+
+	private void commit(final List<PendingWrite> group) {
+		List<User> users = new ArrayList<>(group.size());
+		group.forEach(write -> users.add(write.user()));
+		try {
+			journal.append(users, System.currentTimeMillis()).forEach(this::enqueue);
+			commitSize.record(group.size());
+			group.forEach(write -> write.sink().success(write.user()));
+		} catch (IOException | RuntimeException ex) {
+			log.error("Could not journal {} users", group.size(), ex);
+			group.forEach(write -> write.sink().error(ex));
+		}
+	}
+
+	/**
+	 * Inserts the oldest journaled users. They leave the backlog only once the
+	 * insert has answered; a batch that keeps failing stays for the next round.
+	 */
+	private Mono<Void> drain() {
+		final List<UserJournal.Entry> batch = new ArrayList<>(properties.drainBatchSize());
+		Iterator<UserJournal.Entry> iterator = backlog.iterator();
+		while (iterator.hasNext() && batch.size() < properties.drainBatchSize()) {
+			batch.add(iterator.next());
+		}
+		if (batch.isEmpty()) {
+			return Mono.empty();
+		}
+
+		final List<User> users = new ArrayList<>(batch.size());
+		batch.forEach(entry -> users.add(entry.user()));
+		return Mono.defer(() -> repository.insertAll(users))
+				.retryWhen(Retry.backoff(properties.maxRetries(), properties.retryBackoff()))
+				.publishOn(scheduler)
+				.doOnNext(errors -> stored(batch, errors))
+				.onErrorResume(ex -> {
+					log.warn("Could not store {} journaled users, will retry", batch.size(), ex);
+					return Mono.empty();
+				})
+				.then();
+	}
+
+	private void stored(final List<UserJournal.Entry> batch, final List<WriteError> errors) {
+		long now = System.currentTimeMillis();
+		for (UserJournal.Entry entry : batch) {
+			backlog.poll();
+			backlogSize.decrementAndGet();
+			lag.record(now - entry.acceptedAt(), MILLISECONDS);
+		}
+		for (WriteError error : errors) {
+			String id = batch.get(error.index()).user().getId();
+			rejected.increment();
+			cache.invalidate(id);
+			log.warn("Journaled user {} was not stored: {}", id, error.message());
+		}
+		try {
+			journal.stored(batch.get(batch.size() - 1).end());
+		} catch (IOException ex) {
+			log.error("Could not record the journal offset; stored users may be replayed", ex);
+		}
+	}
+
+	private void enqueue(final UserJournal.Entry entry) {
+		backlog.add(entry);
+		backlogSize.incrementAndGet();
+	}
+
+	private record PendingWrite(User user, MonoSink<User> sink) {}
+
+}
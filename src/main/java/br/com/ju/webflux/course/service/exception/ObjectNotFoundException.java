@@ -1,11 +1,28 @@
 package br.com.ju.webflux.course.service.exception;
 
+/**
+ * Raised when a user to change or delete does not exist. It carries no stack
+ * trace: the handler only reads the message, and filling the trace would
+ * dominate the cost of a 404.
+ */
 public class ObjectNotFoundException extends RuntimeException{
 
 	private static final long serialVersionUID = 1L;
 	
 	public ObjectNotFoundException(String message) {
-		super(message);
+		super(message, null, false, false);
+	}
+	
+	public ObjectNotFoundException(String id, Class<?> type) {
+		this(message(id, type));
+	}
+	
+	/**
+	 * The message of a missing {@code type} with {@code id}, also used by 404s
+	 * answered without raising the exception.
+	 */
+	public static String message(final String id, final Class<?> type) {
+		return "Object not found. Id: " + id + ", Type: " + type.getSimpleName() + " ";
 	}
 
 }
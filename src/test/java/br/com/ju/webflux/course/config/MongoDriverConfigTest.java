@@ -0,0 +1,66 @@
+package br.com.ju.webflux.course.config;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.MongoCompressor;
+
+import br.com.ju.webflux.course.metrics.MongoPoolMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class MongoDriverConfigTest {
+
+	@Test
+	void testAppliesProperties() {
+		MongoDriverProperties properties = new MongoDriverProperties(
+				new MongoDriverProperties.Pool(20, 5, 4, Duration.ofMillis(500), Duration.ofMinutes(1)),
+				new MongoDriverProperties.Socket(Duration.ofSeconds(2), Duration.ofSeconds(5)),
+				List.of(MongoDriverProperties.Compressor.ZSTD, MongoDriverProperties.Compressor.SNAPPY),
+				500);
+		MongoClientSettings.Builder builder = MongoClientSettings.builder();
+
+		new MongoDriverConfig().mongoDriverCustomizer(properties, new MongoPoolMetrics(new SimpleMeterRegistry()))
+				.customize(builder);
+		MongoClientSettings settings = builder.build();
+
+		assertEquals(20, settings.getConnectionPoolSettings().getMaxSize());
+		assertEquals(5, settings.getConnectionPoolSettings().getMinSize());
+		assertEquals(4, settings.getConnectionPoolSettings().getMaxConnecting());
+		assertEquals(500, settings.getConnectionPoolSettings().getMaxWaitTime(MILLISECONDS));
+		assertEquals(1, settings.getConnectionPoolSettings().getConnectionPoolListeners().size());
+		assertEquals(2000, settings.getSocketSettings().getConnectTimeout(MILLISECONDS));
+		assertEquals(5000, settings.getSocketSettings().getReadTimeout(MILLISECONDS));
+		assertEquals(List.of(MongoCompressor.ZSTD_COMPRESSOR, MongoCompressor.SNAPPY_COMPRESSOR),
+				settings.getCompressorList().stream().map(MongoCompressor::getName).toList());
+	}
+
+	@Test
+	void testKeepsConnectionStringOptionsThatAreNotSet() {
+		MongoDriverProperties properties = new MongoDriverProperties(
+				new MongoDriverProperties.Pool(20, null, null, null, null),
+				new MongoDriverProperties.Socket(null, null),
+				null,
+				500);
+		MongoClientSettings.Builder builder = MongoClientSettings.builder()
+				.applyConnectionString(new ConnectionString(
+						"mongodb://localhost/test?maxPoolSize=50&minPoolSize=3&connectTimeoutMS=1500&compressors=zlib"));
+
+		new MongoDriverConfig().mongoDriverCustomizer(properties, new MongoPoolMetrics(new SimpleMeterRegistry()))
+				.customize(builder);
+		MongoClientSettings settings = builder.build();
+
+		assertEquals(20, settings.getConnectionPoolSettings().getMaxSize());
+		assertEquals(3, settings.getConnectionPoolSettings().getMinSize());
+		assertEquals(1500, settings.getSocketSettings().getConnectTimeout(MILLISECONDS));
+		assertEquals(List.of(MongoCompressor.ZLIB_COMPRESSOR),
+				settings.getCompressorList().stream().map(MongoCompressor::getName).toList());
+	}
+
+}
@@ -1,15 +1,28 @@
 package br.com.ju.webflux.course.controller;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.http.HttpHeaders.IF_MATCH;
 import static org.springframework.http.HttpStatus.BAD_REQUEST;
+import static org.springframework.http.HttpHeaders.IF_NONE_MATCH;
+import static org.springframework.http.HttpStatus.NOT_MODIFIED;
+import static org.springframework.http.HttpStatus.PRECONDITION_FAILED;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
+import static org.springframework.http.HttpStatus.UNSUPPORTED_MEDIA_TYPE;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON;
 import static org.springframework.web.reactive.function.BodyInserters.fromValue;
 import static reactor.core.publisher.Mono.just;
 
+import java.util.List;
+import java.util.Set;
+
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -18,18 +31,34 @@ import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWeb
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.reactive.server.WebTestClient;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
 import com.mongodb.reactivestreams.client.MongoClient;
 
 import br.com.ju.webflux.course.entity.User;
+import br.com.ju.webflux.course.entity.UserChange;
 import br.com.ju.webflux.course.mapper.UserMapper;
+import br.com.ju.webflux.course.model.request.SearchCursor;
+import br.com.ju.webflux.course.model.request.SearchField;
 import br.com.ju.webflux.course.model.request.UserRequest;
+import br.com.ju.webflux.course.model.response.UserBatchResponse;
+import br.com.ju.webflux.course.model.response.UserEventResponse;
+import br.com.ju.webflux.course.model.response.EmailDomainCount;
 import br.com.ju.webflux.course.model.response.UserResponse;
+import br.com.ju.webflux.course.model.response.UserStatsResponse;
+import br.com.ju.webflux.course.service.UserEventService;
 import br.com.ju.webflux.course.service.UserService;
+import br.com.ju.webflux.course.service.UserStatsService;
 import br.com.ju.webflux.course.service.exception.ObjectNotFoundException;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 @ExtendWith(SpringExtension.class)
 @SpringBootTest
@@ -42,6 +71,12 @@ class UserControllerImplTest {
 	@MockBean
 	private UserService service;
 	
+	@MockBean
+	private UserEventService events;
+	
+	@MockBean
+	private UserStatsService stats;
+	
 	@MockBean
 	private MongoClient mongoClient;
 	
@@ -53,6 +88,7 @@ class UserControllerImplTest {
 	private static final String PASSWORD = "123";
 	private static final String NAME = "Sara Mello";
 	private static final String EMAIL = "sara@mail.com";
+	private static final Long VERSION = 1L;
 		
 	@Test
 	@DisplayName("Test endpoint save and success")
@@ -69,6 +105,22 @@ class UserControllerImplTest {
 		verify(service).save(any(UserRequest.class));	
 	}
 	
+	@Test
+	@DisplayName("Test endpoint save accepted with write-behind")
+	void testSaveAcceptedWithWriteBehind() {
+		final var request = new UserRequest(NAME, EMAIL, PASSWORD);
+		
+		when(service.isWriteBehind()).thenReturn(true);
+		when(service.save(any(UserRequest.class))).thenReturn(just(User.builder().build()));
+		
+		webTestClient.post().uri(URI)
+		.contentType(APPLICATION_JSON)
+		.body(fromValue(request))
+		.exchange().expectStatus().isAccepted();
+		
+		verify(service).save(any(UserRequest.class));	
+	}
+	
 	@Test
 	@DisplayName("Test endpoint save with bad request for name with spaces at the beginning")
 	void testSaveWithBadRequestForNameWithSpaces() {
@@ -280,10 +332,64 @@ class UserControllerImplTest {
 		verify(service).save(any(UserRequest.class));	
 	}
 	
+	@Test
+	@DisplayName("Test endpoint save all with per item results")
+	void testSaveAllWithSuccess() {
+		final var request = new UserRequest(NAME, EMAIL, PASSWORD);
+		final var created = UserBatchResponse.created(0, ID);
+		final var rejected = UserBatchResponse.rejected(1, "E-mail already registered");
+		
+		when(service.saveAll(any(), anyInt())).thenReturn(Flux.just(created, rejected));
+		
+		webTestClient.post().uri(URI + "/batch")
+		.contentType(APPLICATION_NDJSON)
+		.accept(APPLICATION_NDJSON)
+		.body(Flux.just(request, request), UserRequest.class)
+		.exchange()
+		.expectStatus().isOk()
+		.expectBodyList(UserBatchResponse.class)
+		.contains(created, rejected);
+		
+		verify(service).saveAll(any(), anyInt());
+	}
+	
+	@Test
+	@DisplayName("Test endpoint delete all with per item results")
+	void testDeleteAllWithSuccess() {
+		final var deleted = UserBatchResponse.deleted(0, ID);
+		final var notFound = UserBatchResponse.notFound(1, "654321");
+		
+		when(service.deleteAll(any(), anyInt(), anyInt())).thenReturn(Flux.just(deleted, notFound));
+		
+		webTestClient.method(HttpMethod.DELETE).uri(URI + "/batch")
+		.contentType(APPLICATION_JSON)
+		.accept(APPLICATION_NDJSON)
+		.body(fromValue(List.of(ID, "654321")))
+		.exchange()
+		.expectStatus().isOk()
+		.expectBodyList(UserBatchResponse.class)
+		.contains(deleted, notFound);
+		
+		verify(service).deleteAll(any(), anyInt(), anyInt());
+	}
+	
+	@Test
+	@DisplayName("Test endpoint delete all without a supported content type")
+	void testDeleteAllWithUnsupportedContentType() {
+		webTestClient.method(HttpMethod.DELETE).uri(URI + "/batch")
+		.contentType(MediaType.TEXT_PLAIN)
+		.bodyValue(ID)
+		.exchange()
+		.expectStatus().isEqualTo(UNSUPPORTED_MEDIA_TYPE);
+		
+		verify(service, never()).delete(anyString(), any());
+		verify(service, never()).deleteAll(any(), anyInt(), anyInt());
+	}
+	
 	@Test
 	@DisplayName("Test endpoint find by id with success")
 	void testFindByIdWithSuccess() {
-		final var userResponse = new UserResponse(ID, NAME, EMAIL, PASSWORD);
+		final var userResponse = new UserResponse(ID, NAME, EMAIL, VERSION);
 		
 		when(service.findById(anyString())).thenReturn(just(User.builder().build()));
 		when(mapper.toResponse(any(User.class))).thenReturn(userResponse);
@@ -296,34 +402,91 @@ class UserControllerImplTest {
 		.jsonPath("$.id").isEqualTo(ID)
 		.jsonPath("$.name").isEqualTo(NAME)
 		.jsonPath("$.email").isEqualTo(EMAIL)
-		.jsonPath("$.password").isEqualTo(PASSWORD);
+		.jsonPath("$.password").doesNotExist();
 		
 		verify(service).findById(anyString());
 		verify(mapper).toResponse(any(User.class));
 	}
 	
+	@Test
+	@DisplayName("Test endpoint find by id sends the version as ETag")
+	void testFindByIdWithETag() {
+		final var userResponse = new UserResponse(ID, NAME, EMAIL, VERSION);
+		
+		when(service.findById(anyString())).thenReturn(just(User.builder().version(VERSION).build()));
+		when(mapper.toResponse(any(User.class))).thenReturn(userResponse);
+		
+		webTestClient.get().uri(URI + "/" + ID)
+		.accept(APPLICATION_JSON)
+		.exchange()
+		.expectStatus().isOk()
+		.expectHeader().valueEquals("ETag", "\"" + VERSION + "\"")
+		.expectBody()
+		.jsonPath("$.version").isEqualTo(VERSION);
+	}
+	
+	@Test
+	@DisplayName("Test endpoint find by id not modified for matching If-None-Match")
+	void testFindByIdNotModified() {
+		
+		when(service.findById(anyString())).thenReturn(just(User.builder().version(VERSION).build()));
+		
+		webTestClient.get().uri(URI + "/" + ID)
+		.header(IF_NONE_MATCH, "\"" + VERSION + "\"")
+		.accept(APPLICATION_JSON)
+		.exchange()
+		.expectStatus().isEqualTo(NOT_MODIFIED)
+		.expectHeader().valueEquals("ETag", "\"" + VERSION + "\"")
+		.expectBody().isEmpty();
+		
+		verify(mapper, never()).toResponse(any(User.class));
+	}
+	
 	@Test
 	@DisplayName("Test endpoint find by id with resource not found")
 	void testFindByIdResourceNotFound() {
 		
-		when(service.findById(anyString())).thenThrow(ObjectNotFoundException.class);
+		when(service.findById(anyString())).thenReturn(Mono.empty());
 		
 		webTestClient.get().uri(URI + "/"  + ID)
 		.accept(APPLICATION_JSON)
 		.exchange()
 		.expectStatus().isNotFound()
 		.expectBody()
+		.jsonPath("$.path").isEqualTo(URI + "/" + ID)
 		.jsonPath("$.status").isEqualTo(NOT_FOUND.value())
-		.jsonPath("$.error").isEqualTo("Not Found");
+		.jsonPath("$.error").isEqualTo("Not Found")
+		.jsonPath("$.message").isEqualTo(ObjectNotFoundException.message(ID, User.class));
 		
 		verify(service).findById(anyString());
 	}
 	
+	@Test
+	@DisplayName("Test endpoint lookup by ids with success")
+	void testFindAllByIdWithSuccess() {
+		
+		final var userResponse = new UserResponse(ID, NAME, EMAIL, VERSION);
+		
+		when(service.findAllById(anyCollection())).thenReturn(Flux.just(User.builder().build()));
+		when(mapper.toResponse(any(User.class))).thenReturn(userResponse);
+		
+		webTestClient.post().uri(URI + "/lookup")
+		.contentType(APPLICATION_JSON)
+		.body(fromValue(List.of(ID, ID)))
+		.exchange()
+		.expectStatus().isOk()
+		.expectBody()
+		.jsonPath("$.[0].id").isEqualTo(ID)
+		.jsonPath("$.length()").isEqualTo(1);
+		
+		verify(service).findAllById(Set.of(ID));
+	}
+	
 	@Test
 	@DisplayName("Test endpoint find all with success")
 	void testFindAllWithSuccess() {
 		
-		final var userResponse = new UserResponse(ID, NAME, EMAIL, PASSWORD);
+		final var userResponse = new UserResponse(ID, NAME, EMAIL, VERSION);
 		
 		when(service.findAll()).thenReturn(Flux.just(User.builder().build()));
 		when(mapper.toResponse(any(User.class))).thenReturn(userResponse);
@@ -336,20 +499,171 @@ class UserControllerImplTest {
 		.jsonPath("$.[0].id").isEqualTo(ID)
 		.jsonPath("$.[0].name").isEqualTo(NAME)
 		.jsonPath("$.[0].email").isEqualTo(EMAIL)
-		.jsonPath("$.[0].password").isEqualTo(PASSWORD);
+		.jsonPath("$.[0].password").doesNotExist();
 		
 		verify(service).findAll();	
 		verify(mapper).toResponse(any(User.class));
 	}
 	
+	@Test
+	@DisplayName("Test endpoint find all negotiates Smile")
+	void testFindAllWithSmile() throws Exception {
+		
+		final var userResponse = new UserResponse(ID, NAME, EMAIL, VERSION);
+		final var smile = MediaType.parseMediaType("application/x-jackson-smile");
+		
+		when(service.findAll()).thenReturn(Flux.just(User.builder().build()));
+		when(mapper.toResponse(any(User.class))).thenReturn(userResponse);
+		
+		byte[] body = webTestClient.get().uri(URI)
+		.accept(smile)
+		.exchange()
+		.expectStatus().isOk()
+		.expectHeader().contentTypeCompatibleWith(smile)
+		.expectBody(byte[].class)
+		.returnResult()
+		.getResponseBody();
+		
+		UserResponse[] decoded = new ObjectMapper(new SmileFactory()).readValue(body, UserResponse[].class);
+		assertEquals(ID, decoded[0].id());
+	}
+	
+	@Test
+	@DisplayName("Test endpoint find page with success")
+	void testFindPageWithSuccess() {
+		
+		final var userResponse = new UserResponse(ID, NAME, EMAIL, VERSION);
+		
+		when(service.findPage(any(), anyInt())).thenReturn(Flux.just(User.builder().build()));
+		when(mapper.toResponse(any(User.class))).thenReturn(userResponse);
+		
+		webTestClient.get().uri(URI + "/page?limit=1")
+		.accept(APPLICATION_JSON)
+		.exchange()
+		.expectStatus().isOk()
+		.expectBody()
+		.jsonPath("$.content[0].id").isEqualTo(ID)
+		.jsonPath("$.content[0].name").isEqualTo(NAME)
+		.jsonPath("$.next").isEqualTo(ID);
+		
+		verify(service).findPage(null, 1);
+		verify(mapper).toResponse(any(User.class));
+	}
+	
+	@Test
+	@DisplayName("Test endpoint search by email prefix with success")
+	void testSearchWithSuccess() {
+		
+		final var userResponse = new UserResponse(ID, NAME, EMAIL, VERSION);
+		final var user = User.builder().id(ID).email(EMAIL).build();
+		
+		when(service.search(any(SearchField.class), anyString(), any(), anyInt())).thenReturn(Flux.just(user));
+		when(mapper.toResponse(any(User.class))).thenReturn(userResponse);
+		
+		webTestClient.get().uri(URI + "/search?q=sara&field=email&limit=1")
+		.accept(APPLICATION_JSON)
+		.exchange()
+		.expectStatus().isOk()
+		.expectBody()
+		.jsonPath("$.content[0].email").isEqualTo(EMAIL)
+		.jsonPath("$.next").isEqualTo(new SearchCursor(EMAIL, ID).encode());
+		
+		verify(service).search(SearchField.EMAIL, "sara", null, 1);
+	}
+	
+	@Test
+	@DisplayName("Test endpoint search with unknown field")
+	void testSearchWithBadRequestForUnknownField() {
+		
+		webTestClient.get().uri(URI + "/search?q=sara&field=password")
+		.accept(APPLICATION_JSON)
+		.exchange()
+		.expectStatus().isBadRequest();
+	}
+	
+	@Test
+	@DisplayName("Test endpoint find all as ndjson stream with success")
+	void testStreamWithSuccess() {
+		
+		final var userResponse = new UserResponse(ID, NAME, EMAIL, VERSION);
+		
+		when(service.stream(anyInt())).thenReturn(Flux.just(User.builder().build()));
+		when(mapper.toResponse(any(User.class))).thenReturn(userResponse);
+		
+		webTestClient.get().uri(URI)
+		.accept(APPLICATION_NDJSON)
+		.exchange()
+		.expectStatus().isOk()
+		.expectBodyList(UserResponse.class)
+		.hasSize(1)
+		.contains(userResponse);
+		
+		verify(service).stream(anyInt());
+		verify(mapper).toResponse(any(User.class));
+	}
+	
+	@Test
+	@DisplayName("Test endpoint count with success")
+	void testCountWithSuccess() {
+		
+		when(stats.count()).thenReturn(just(42L));
+		
+		webTestClient.get().uri(URI + "/count")
+		.accept(APPLICATION_JSON)
+		.exchange()
+		.expectStatus().isOk()
+		.expectBody()
+		.jsonPath("$.count").isEqualTo(42);
+		
+		verify(stats).count();
+	}
+	
+	@Test
+	@DisplayName("Test endpoint stats with success")
+	void testStatsWithSuccess() {
+		
+		when(stats.stats()).thenReturn(just(new UserStatsResponse(42L, List.of(new EmailDomainCount("mail.com", 40L)))));
+		
+		webTestClient.get().uri(URI + "/stats")
+		.accept(APPLICATION_JSON)
+		.exchange()
+		.expectStatus().isOk()
+		.expectBody()
+		.jsonPath("$.total").isEqualTo(42)
+		.jsonPath("$.emailDomains[0].domain").isEqualTo("mail.com")
+		.jsonPath("$.emailDomains[0].count").isEqualTo(40);
+		
+		verify(stats).stats();
+	}
+	
+	@Test
+	@DisplayName("Test endpoint events as ndjson resuming after a token")
+	void testEventStreamWithSuccess() {
+		
+		final var userResponse = new UserResponse(ID, NAME, EMAIL, VERSION);
+		final var change = new UserChange("token-2", UserChange.Type.UPDATED, ID, User.builder().build());
+		
+		when(events.changes(anyString())).thenReturn(Flux.just(change));
+		when(mapper.toResponse(any(User.class))).thenReturn(userResponse);
+		
+		webTestClient.get().uri(URI + "/events?resumeAfter=token-1")
+		.accept(APPLICATION_NDJSON)
+		.exchange()
+		.expectStatus().isOk()
+		.expectBodyList(UserEventResponse.class)
+		.contains(new UserEventResponse("token-2", UserChange.Type.UPDATED, ID, userResponse));
+		
+		verify(events).changes("token-1");
+	}
+	
 	@Test
 	@DisplayName("Test endpoint update with success")
 	void testUpdateWithSuccess() {
 		
 		final var request = new UserRequest(NAME, EMAIL, PASSWORD);
-		final var userResponse = new UserResponse(ID, NAME, EMAIL, PASSWORD);
+		final var userResponse = new UserResponse(ID, NAME, EMAIL, VERSION);
 		
-		when(service.update(anyString(), any(UserRequest.class))).thenReturn(just(User.builder().build()));
+		when(service.update(anyString(), any(UserRequest.class), any())).thenReturn(just(User.builder().build()));
 		when(mapper.toResponse(any(User.class))).thenReturn(userResponse);
 		
 		webTestClient.patch().uri(URI + "/" + ID)
@@ -361,20 +675,83 @@ class UserControllerImplTest {
 		.jsonPath("$.id").isEqualTo(ID)
 		.jsonPath("$.name").isEqualTo(NAME)
 		.jsonPath("$.email").isEqualTo(EMAIL)
-		.jsonPath("$.password").isEqualTo(PASSWORD);
+		.jsonPath("$.password").doesNotExist();
 		
-		verify(service).update(anyString(), any(UserRequest.class));	
+		verify(service).update(anyString(), any(UserRequest.class), any());	
 		verify(mapper).toResponse(any(User.class));
 	}
 	
+	@Test
+	@DisplayName("Test endpoint update with stale version")
+	void testUpdateWithConflict() {
+		
+		final var request = new UserRequest(NAME, EMAIL, PASSWORD);
+		
+		when(service.update(anyString(), any(UserRequest.class), any()))
+		.thenThrow(new OptimisticLockingFailureException("stale"));
+		
+		webTestClient.patch().uri(URI + "/" + ID)
+		.contentType(APPLICATION_JSON)
+		.header(IF_MATCH, "\"" + VERSION + "\"")
+		.body(fromValue(request))
+		.exchange()
+		.expectStatus().isEqualTo(PRECONDITION_FAILED)
+		.expectBody()
+		.jsonPath("$.path").isEqualTo(URI + "/" + ID)
+		.jsonPath("$.status").isEqualTo(PRECONDITION_FAILED.value())
+		.jsonPath("$.error").isEqualTo("Precondition Failed");
+		
+		verify(service).update(ID, request, VERSION);
+	}
+	
+	@Test
+	@DisplayName("Test endpoint update with a weak If-Match tag")
+	void testUpdateWithWeakETag() {
+		
+		final var request = new UserRequest(NAME, EMAIL, PASSWORD);
+		
+		when(service.update(anyString(), any(UserRequest.class), any()))
+		.thenReturn(Mono.error(new OptimisticLockingFailureException("stale")));
+		
+		webTestClient.patch().uri(URI + "/" + ID)
+		.contentType(APPLICATION_JSON)
+		.header(IF_MATCH, "W/\"" + VERSION + "\"")
+		.body(fromValue(request))
+		.exchange()
+		.expectStatus().isEqualTo(PRECONDITION_FAILED);
+		
+		verify(service).update(ID, request, -1L);
+	}
+	
+	@Test
+	@DisplayName("Test endpoint update with a list of If-Match tags")
+	void testUpdateWithETagList() {
+		
+		final var request = new UserRequest(NAME, EMAIL, PASSWORD);
+		final var userResponse = new UserResponse(ID, NAME, EMAIL, VERSION);
+		
+		when(service.findById(ID)).thenReturn(just(User.builder().id(ID).version(VERSION).build()));
+		when(service.update(anyString(), any(UserRequest.class), any())).thenReturn(just(User.builder().build()));
+		when(mapper.toResponse(any(User.class))).thenReturn(userResponse);
+		
+		webTestClient.patch().uri(URI + "/" + ID)
+		.contentType(APPLICATION_JSON)
+		.header(IF_MATCH, "\"" + (VERSION + 5) + "\", \"" + VERSION + "\"")
+		.body(fromValue(request))
+		.exchange()
+		.expectStatus().isOk();
+		
+		verify(service).update(ID, request, VERSION);
+	}
+	
 	@Test
 	@DisplayName("Test endpoint update resource not found")
 	void testUpdateResourceNotFound() {
 		
 		final var request = new UserRequest(NAME, EMAIL, PASSWORD);
-		final var userResponse = new UserResponse(ID, NAME, EMAIL, PASSWORD);
+		final var userResponse = new UserResponse(ID, NAME, EMAIL, VERSION);
 		
-		when(service.update(anyString(), any(UserRequest.class))).thenThrow(ObjectNotFoundException.class);
+		when(service.update(anyString(), any(UserRequest.class), any())).thenThrow(ObjectNotFoundException.class);
 		when(mapper.toResponse(any(User.class))).thenReturn(userResponse);
 		
 		webTestClient.patch().uri(URI + "/" + ID)
@@ -387,7 +764,7 @@ class UserControllerImplTest {
 		.jsonPath("$.status").isEqualTo(NOT_FOUND.value())
 		.jsonPath("$.error").isEqualTo("Not Found");
 		
-		verify(service).update(anyString(), any(UserRequest.class));	
+		verify(service).update(anyString(), any(UserRequest.class), any());	
 	}
 	
 	@Test
@@ -396,7 +773,7 @@ class UserControllerImplTest {
 		
 		final var request = new UserRequest(NAME, EMAIL, PASSWORD);
 		
-		when(service.update(anyString(), any(UserRequest.class))).thenThrow(DuplicateKeyException.class);
+		when(service.update(anyString(), any(UserRequest.class), any())).thenThrow(DuplicateKeyException.class);
 		
 		webTestClient.patch().uri(URI + "/" + ID)
 		.contentType(APPLICATION_JSON)
@@ -409,27 +786,27 @@ class UserControllerImplTest {
 		.jsonPath("$.error").isEqualTo("Bad Request")
 		.jsonPath("$.message").isEqualTo("E-mail already registered");
 		
-		verify(service).update(anyString(), any(UserRequest.class));	
+		verify(service).update(anyString(), any(UserRequest.class), any());	
 	}
 	
 	@Test
 	@DisplayName("Test endpoint delete with success")
 	void testDeleteWithSuccess() {
 		
-		when(service.delete(anyString())).thenReturn(just(User.builder().build()));
+		when(service.delete(anyString(), any())).thenReturn(Mono.empty());
 		
 		webTestClient.delete().uri(URI + "/" + ID)
 		.exchange()
 		.expectStatus().isOk();
 		
-		verify(service).delete(anyString());	
+		verify(service).delete(anyString(), any());	
 	}
 	
 	@Test
 	@DisplayName("Test endpoint delete with resource not found")
 	void testDeleteWithResourceNotFound() {
 		
-		when(service.delete(anyString())).thenThrow(ObjectNotFoundException.class);
+		when(service.delete(anyString(), any())).thenThrow(ObjectNotFoundException.class);
 		
 		webTestClient.delete().uri(URI + "/" + ID)
 		.exchange()
@@ -439,7 +816,7 @@ class UserControllerImplTest {
 		.jsonPath("$.status").isEqualTo(NOT_FOUND.value())
 		.jsonPath("$.error").isEqualTo("Not Found");
 		
-		verify(service).delete(anyString());	
+		verify(service).delete(anyString(), any());	
 	}
 
 }
@@ -0,0 +1,53 @@
+package br.com.ju.webflux.course.filter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.Duration;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+
+import br.com.ju.webflux.course.config.ReadRoutingProperties;
+import br.com.ju.webflux.course.repository.ConsistencyToken;
+import reactor.core.publisher.Mono;
+
+class ConsistencyTokenFilterTest {
+
+	private final ConsistencyTokenFilter filter = new ConsistencyTokenFilter(
+			new ReadRoutingProperties(true, Duration.ofSeconds(90), Set.of("findAll")));
+
+	@Test
+	void testSendsBackAdvancedToken() {
+		MockServerWebExchange exchange = MockServerWebExchange.from(
+				MockServerHttpRequest.put("/users/1").header(ConsistencyToken.HEADER, "5"));
+		WebFilterChain write = chained -> Mono.deferContextual(context -> {
+			ConsistencyToken token = context.get(ConsistencyToken.class);
+			assertEquals(5L, token.operationTime());
+			token.advance(42L);
+			return chained.getResponse().setComplete();
+		});
+
+		filter.filter(exchange, write).block();
+
+		assertEquals("42", exchange.getResponse().getHeaders().getFirst(ConsistencyToken.HEADER));
+	}
+
+	@Test
+	void testOmitsTokenWithoutWrites() {
+		MockServerWebExchange exchange = MockServerWebExchange.from(
+				MockServerHttpRequest.get("/users/1").header(ConsistencyToken.HEADER, "not-a-token"));
+		WebFilterChain read = chained -> Mono.deferContextual(context -> {
+			assertEquals(0L, context.get(ConsistencyToken.class).operationTime());
+			return chained.getResponse().setComplete();
+		});
+
+		filter.filter(exchange, read).block();
+
+		assertNull(exchange.getResponse().getHeaders().getFirst(ConsistencyToken.HEADER));
+	}
+
+}
@@ -0,0 +1,76 @@
+package br.com.ju.webflux.course.filter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.http.HttpStatus.TOO_MANY_REQUESTS;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+
+import br.com.ju.webflux.course.config.RateLimitProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+
+class RateLimitFilterTest {
+
+	private static final String PROXY = "10.0.0.1";
+	private static final String CLIENT = "10.0.0.2";
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final RateLimitFilter filter = new RateLimitFilter(
+			new RateLimitProperties(true, 1, 1, "X-Client-Id", Set.of(PROXY), 100, Duration.ofMinutes(10),
+					new RateLimitProperties.Bulkheads(64, 16, 256)),
+			registry);
+	private final WebFilterChain chain = exchange -> Mono.empty();
+
+	@Test
+	void testIgnoresClientHeaderFromUntrustedPeer() {
+		assertNull(send(CLIENT, "a").getResponse().getStatusCode());
+
+		MockServerWebExchange rejected = send(CLIENT, "b");
+
+		assertEquals(TOO_MANY_REQUESTS, rejected.getResponse().getStatusCode());
+		assertEquals(1, registry.get("users.ratelimit.rejected")
+				.tag("reason", "rate").tag("endpoint", "other").counter().count());
+	}
+
+	@Test
+	void testKeysOnClientHeaderFromTrustedProxy() {
+		assertNull(send(PROXY, "a").getResponse().getStatusCode());
+		assertNull(send(PROXY, "b").getResponse().getStatusCode());
+
+		assertEquals(TOO_MANY_REQUESTS, send(PROXY, "a").getResponse().getStatusCode());
+	}
+
+	@Test
+	void testIgnoresPathsOutsideUsers() {
+		assertNull(send("/usersfoo", CLIENT, "a").getResponse().getStatusCode());
+		assertNull(send("/usersfoo", CLIENT, "a").getResponse().getStatusCode());
+	}
+
+	@Test
+	void testRejectsNonPositiveRefill() {
+		assertThrows(IllegalArgumentException.class, () -> new RateLimitProperties(true, 1, 0, "X-Client-Id",
+				Set.of(), 100, Duration.ofMinutes(10), new RateLimitProperties.Bulkheads(64, 16, 256)));
+	}
+
+	private MockServerWebExchange send(final String peer, final String client) {
+		return send("/users/1", peer, client);
+	}
+
+	private MockServerWebExchange send(final String path, final String peer, final String client) {
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get(path)
+				.remoteAddress(new InetSocketAddress(peer, 40000))
+				.header("X-Client-Id", client));
+		filter.filter(exchange, chain).block();
+		return exchange;
+	}
+
+}
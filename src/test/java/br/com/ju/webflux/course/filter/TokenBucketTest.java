@@ -0,0 +1,42 @@
+package br.com.ju.webflux.course.filter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class TokenBucketTest {
+
+	private static final long SECOND = 1_000_000_000L;
+
+	@Test
+	void testBurstUpToCapacityThenReject() {
+		TokenBucket bucket = new TokenBucket(3, 10, 0);
+
+		assertEquals(0, bucket.tryAcquire(0));
+		assertEquals(0, bucket.tryAcquire(0));
+		assertEquals(0, bucket.tryAcquire(0));
+		assertEquals(SECOND / 10, bucket.tryAcquire(0));
+	}
+
+	@Test
+	void testRefillOverTime() {
+		TokenBucket bucket = new TokenBucket(1, 10, 0);
+
+		assertEquals(0, bucket.tryAcquire(0));
+		assertTrue(bucket.tryAcquire(SECOND / 20) > 0);
+		assertEquals(0, bucket.tryAcquire(SECOND / 10));
+	}
+
+	@Test
+	void testBulkheadCapsConcurrency() {
+		Bulkhead bulkhead = new Bulkhead(1);
+
+		assertTrue(bulkhead.tryAcquire());
+		assertFalse(bulkhead.tryAcquire());
+		bulkhead.release();
+		assertTrue(bulkhead.tryAcquire());
+	}
+
+}
@@ -0,0 +1,50 @@
+package br.com.ju.webflux.course.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import org.junit.jupiter.api.Test;
+
+import br.com.ju.webflux.course.model.request.UserRequest;
+import br.com.ju.webflux.course.service.exception.ObjectNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+class UserMetricsTest {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final UserMetrics metrics = new UserMetrics(registry);
+
+	@Test
+	void testTimesReactiveStagesByLayerAndOperation() {
+		metrics.timed(Mono.just(1), "repository", "findById").block();
+		metrics.timed(Flux.just(1, 2), "service", "findAll").blockLast();
+
+		assertNotNull(registry.find("users.repository.flow.duration").tag("operation", "findById").timer());
+		assertNotNull(registry.find("users.service.flow.duration").tag("operation", "findAll").timer());
+	}
+
+	@Test
+	void testTimesMappingAndValidation() {
+		assertEquals("mapped", metrics.mapping("toResponse", () -> "mapped"));
+		metrics.validating(UserRequest.class, () -> true);
+		metrics.validating(UserRequest.class, () -> true);
+
+		assertEquals(1, registry.get("users.mapper").tag("operation", "toResponse").timer().count());
+		assertEquals(2, registry.get("users.validation").tag("type", "UserRequest").timer().count());
+	}
+
+	@Test
+	void testCountsErrorsAndRoutedReads() {
+		metrics.error(ObjectNotFoundException.class, 404);
+		metrics.error(ObjectNotFoundException.class, 404);
+		metrics.routed("findAll", "secondaryPreferred");
+
+		assertEquals(2, registry.get("users.errors")
+				.tag("exception", "ObjectNotFoundException").tag("status", "404").counter().count());
+		assertEquals(1, registry.get("users.repository.reads")
+				.tag("operation", "findAll").tag("target", "secondaryPreferred").counter().count());
+	}
+
+}
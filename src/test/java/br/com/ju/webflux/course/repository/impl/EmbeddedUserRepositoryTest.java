@@ -0,0 +1,163 @@
+package br.com.ju.webflux.course.repository.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DuplicateKeyException;
+
+import br.com.ju.webflux.course.config.EmbeddedProperties;
+import br.com.ju.webflux.course.entity.User;
+import br.com.ju.webflux.course.metrics.UserMetrics;
+import br.com.ju.webflux.course.model.request.SearchCursor;
+import br.com.ju.webflux.course.model.request.SearchField;
+import br.com.ju.webflux.course.repository.WriteError;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.test.StepVerifier;
+
+class EmbeddedUserRepositoryTest {
+
+	@TempDir
+	private Path directory;
+
+	private EmbeddedUserRepository repository;
+
+	private static final String NAME = "Sara Mello";
+	private static final String EMAIL = "sara@mail.com";
+	private static final String PASSWORD = "hash";
+
+	@AfterEach
+	void tearDown() throws Exception {
+		repository.destroy();
+	}
+
+	@Test
+	void testSaveAndFindByIdWithoutPassword() {
+		repository = repository(null);
+		User saved = repository.save(user(NAME, EMAIL)).block();
+
+		StepVerifier.create(repository.findById(saved.getId()))
+		.expectNextMatches(user -> NAME.equals(user.getName()) && user.getPassword() == null
+				&& user.getVersion() == 0L)
+		.expectComplete()
+		.verify();
+	}
+
+	@Test
+	void testSaveWithDuplicateEmail() {
+		repository = repository(null);
+		repository.save(user(NAME, EMAIL)).block();
+
+		StepVerifier.create(repository.save(user("Other Name", EMAIL)))
+		.expectError(DuplicateKeyException.class)
+		.verify();
+	}
+
+	@Test
+	void testSearchByPrefixWithCursor() {
+		repository = repository(null);
+		repository.insertAll(List.of(user("Ana", "ana@mail.com"), user("Anabela", "anabela@mail.com"),
+				user("Bruno", "bruno@mail.com"))).block();
+
+		List<User> first = repository.search(SearchField.NAME, "Ana", null, 1).collectList().block();
+		assertEquals("Ana", first.get(0).getName());
+
+		StepVerifier.create(repository.search(SearchField.NAME, "Ana",
+				new SearchCursor(first.get(0).getName(), first.get(0).getId()), 10))
+		.expectNextMatches(user -> "Anabela".equals(user.getName()))
+		.expectComplete()
+		.verify();
+	}
+
+	@Test
+	void testUpdateWithStaleVersion() {
+		repository = repository(null);
+		User saved = repository.save(user(NAME, EMAIL)).block();
+
+		StepVerifier.create(repository.update(saved.getId(), User.builder().name("New Name").build(), 5L))
+		.expectComplete()
+		.verify();
+
+		StepVerifier.create(repository.update(saved.getId(), User.builder().name("New Name").build(), 0L))
+		.expectNextMatches(user -> "New Name".equals(user.getName()) && user.getVersion() == 1L)
+		.expectComplete()
+		.verify();
+	}
+
+	@Test
+	void testUpdateMovesOnlyStaleIndexEntries() {
+		repository = repository(null);
+		User saved = repository.save(user(NAME, EMAIL)).block();
+
+		repository.update(saved.getId(), User.builder().name("Bruna Mello").build(), null).block();
+
+		assertEquals(true, repository.existsByEmail(EMAIL, null).block());
+		StepVerifier.create(repository.search(SearchField.NAME, "Bruna", null, 10))
+		.expectNextMatches(user -> saved.getId().equals(user.getId()))
+		.expectComplete()
+		.verify();
+		StepVerifier.create(repository.search(SearchField.NAME, "Sara", null, 10))
+		.expectComplete()
+		.verify();
+
+		repository.update(saved.getId(), User.builder().email("bruna@mail.com").build(), null).block();
+
+		assertEquals(false, repository.existsByEmail(EMAIL, null).block());
+		assertEquals(true, repository.existsByEmail("bruna@mail.com", null).block());
+	}
+
+	@Test
+	void testBulkWritesReportMissingUsers() {
+		repository = repository(null);
+		User saved = repository.save(user(NAME, EMAIL)).block();
+		String missing = "missing";
+
+		StepVerifier.create(repository.updateAll(List.of(
+				User.builder().id(missing).name("New Name").build(),
+				User.builder().id(saved.getId()).name("New Name").build())))
+		.expectNextMatches(errors -> errors.equals(List.of(WriteError.notFound(0))))
+		.expectComplete()
+		.verify();
+
+		StepVerifier.create(repository.deleteAll(List.of(saved.getId(), missing)))
+		.expectNextMatches(errors -> errors.equals(List.of(WriteError.notFound(1))))
+		.expectComplete()
+		.verify();
+		assertEquals(0L, repository.count().block());
+	}
+
+	@Test
+	void testRestoreFromLog() throws Exception {
+		Path log = directory.resolve("users.log");
+		repository = repository(log);
+		User kept = repository.save(user(NAME, EMAIL)).block();
+		User deleted = repository.save(user("Other Name", "other@mail.com")).block();
+		repository.update(kept.getId(), User.builder().name("New Name").build(), null).block();
+		repository.delete(deleted.getId(), null).block();
+		repository.destroy();
+
+		repository = repository(log);
+
+		StepVerifier.create(repository.findById(kept.getId()))
+		.expectNextMatches(user -> "New Name".equals(user.getName()) && user.getVersion() == 1L)
+		.expectComplete()
+		.verify();
+		assertNull(repository.findById(deleted.getId()).block());
+		assertEquals(1L, repository.count().block());
+	}
+
+	private static User user(final String name, final String email) {
+		return User.builder().name(name).email(email).password(PASSWORD).build();
+	}
+
+	private static EmbeddedUserRepository repository(final Path log) {
+		return new EmbeddedUserRepository(new EmbeddedProperties(log, false),
+				new UserMetrics(new SimpleMeterRegistry()));
+	}
+
+}
@@ -0,0 +1,70 @@
+package br.com.ju.webflux.course.repository.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.ReactiveIndexOperations;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import br.com.ju.webflux.course.entity.User;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+class MongoIndexInitializerTest {
+
+	@Test
+	void testEnsuresDeclaredIndexes() {
+		ReactiveIndexOperations indexes = mock(ReactiveIndexOperations.class);
+		when(indexes.ensureIndex(any())).thenAnswer(invocation ->
+				Mono.just(invocation.<IndexDefinition>getArgument(0).getIndexOptions().getString("name")));
+
+		List<String> names = initializer(indexes).ensureIndexes().block();
+
+		assertEquals(Set.of("name_id", "email_id", "email", "deletedAt_ttl"),
+				names.stream().collect(Collectors.toSet()));
+	}
+
+	@Test
+	void testHealthIsDownUntilIndexesExist() {
+		ReactiveIndexOperations indexes = mock(ReactiveIndexOperations.class);
+		when(indexes.ensureIndex(any()))
+		.thenReturn(Mono.error(new IllegalStateException("not primary")))
+		.thenAnswer(invocation ->
+				Mono.just(invocation.<IndexDefinition>getArgument(0).getIndexOptions().getString("name")));
+		MongoIndexInitializer initializer = initializer(indexes);
+
+		assertEquals(Status.DOWN, initializer.health().getStatus());
+
+		StepVerifier.create(initializer.ensureIndexes())
+		.expectError(IllegalStateException.class)
+		.verify();
+		assertEquals(Status.DOWN, initializer.health().getStatus());
+
+		StepVerifier.create(initializer.ensureIndexes())
+		.expectNextCount(1)
+		.expectComplete()
+		.verify();
+		assertEquals(Status.UP, initializer.health().getStatus());
+	}
+
+	private static MongoIndexInitializer initializer(final ReactiveIndexOperations indexes) {
+		ReactiveMongoTemplate template = mock(ReactiveMongoTemplate.class);
+		when(template.getConverter())
+		.thenReturn(new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext()));
+		when(template.indexOps(User.class)).thenReturn(indexes);
+		return new MongoIndexInitializer(template);
+	}
+
+}
@@ -0,0 +1,68 @@
+package br.com.ju.webflux.course.service;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import br.com.ju.webflux.course.config.EventProperties;
+import br.com.ju.webflux.course.entity.UserChange;
+import br.com.ju.webflux.course.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+import reactor.test.publisher.TestPublisher;
+
+class UserEventServiceTest {
+
+	private final UserRepository repository = mock(UserRepository.class);
+	private final Sinks.Many<UserChange> live = Sinks.many().multicast().directBestEffort();
+	private final TestPublisher<UserChange> replay = TestPublisher.create();
+
+	private UserEventService service;
+
+	@BeforeEach
+	void setUp() {
+		when(repository.watch(null)).thenReturn(live.asFlux());
+		when(repository.watch("t0")).thenReturn(replay.flux());
+		service = new UserEventService(repository,
+				new EventProperties(256, EventProperties.Overflow.DROP_OLDEST, Duration.ofSeconds(30)),
+				new SimpleMeterRegistry());
+	}
+
+	@Test
+	void testResumedStreamJoinsSharedWhenReplayCatchesUp() {
+		StepVerifier.create(service.changes("t0"))
+		.then(() -> live.tryEmitNext(change("t2")))
+		.then(() -> replay.next(change("t1"), change("t2")))
+		.expectNextMatches(change -> "t1".equals(change.resumeToken()))
+		.expectNextMatches(change -> "t2".equals(change.resumeToken()))
+		.then(replay::assertCancelled)
+		.then(() -> live.tryEmitNext(change("t3")))
+		.expectNextMatches(change -> "t3".equals(change.resumeToken()))
+		.thenCancel()
+		.verify();
+	}
+
+	@Test
+	void testResumedStreamJoinsSharedWhenSharedCatchesUp() {
+		StepVerifier.create(service.changes("t0"))
+		.then(() -> replay.next(change("t1"), change("t2"), change("t3")))
+		.expectNextCount(3)
+		.then(() -> live.tryEmitNext(change("t2")))
+		.then(replay::assertCancelled)
+		.then(() -> live.tryEmitNext(change("t3")))
+		.then(() -> live.tryEmitNext(change("t4")))
+		.expectNextMatches(change -> "t4".equals(change.resumeToken()))
+		.thenCancel()
+		.verify();
+	}
+
+	private static UserChange change(final String token) {
+		return new UserChange(token, UserChange.Type.UPDATED, "1", null);
+	}
+
+}
@@ -0,0 +1,130 @@
+package br.com.ju.webflux.course.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import br.com.ju.webflux.course.entity.User;
+
+class UserJournalTest {
+
+	@TempDir
+	private Path directory;
+
+	private UserJournal journal;
+
+	private static final long ACCEPTED_AT = 1_700_000_000_000L;
+
+	@AfterEach
+	void tearDown() throws Exception {
+		journal.close();
+	}
+
+	@Test
+	void testAppendGroup() throws Exception {
+		Path path = directory.resolve("users.journal");
+		journal = UserJournal.open(path);
+
+		List<UserJournal.Entry> entries = journal.append(List.of(user("1"), user("2"), user("3")), ACCEPTED_AT);
+
+		assertEquals(3, entries.size());
+		assertTrue(entries.get(0).end() < entries.get(1).end() && entries.get(1).end() < entries.get(2).end());
+		assertEquals(Files.size(path), entries.get(2).end());
+
+		journal.close();
+		journal = UserJournal.open(path);
+
+		assertEquals(List.of("1", "2", "3"), ids(journal.pending()));
+		assertEquals(entries.get(2).end(), journal.pending().get(2).end());
+		assertEquals(ACCEPTED_AT, journal.pending().get(0).acceptedAt());
+	}
+
+	@Test
+	void testReplayPastStoredOffset() throws Exception {
+		Path path = directory.resolve("users.journal");
+		journal = UserJournal.open(path);
+		List<UserJournal.Entry> first = journal.append(List.of(user("1"), user("2")), ACCEPTED_AT);
+		journal.append(List.of(user("3")), ACCEPTED_AT);
+
+		journal.stored(first.get(1).end());
+		journal.close();
+		journal = UserJournal.open(path);
+
+		assertEquals(List.of("3"), ids(journal.pending()));
+	}
+
+	@Test
+	void testDropTornTail() throws Exception {
+		Path path = directory.resolve("users.journal");
+		journal = UserJournal.open(path);
+		List<UserJournal.Entry> entries = journal.append(List.of(user("1"), user("2")), ACCEPTED_AT);
+		journal.close();
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+			channel.truncate(entries.get(1).end() - 3);
+		}
+
+		journal = UserJournal.open(path);
+
+		assertEquals(List.of("1"), ids(journal.pending()));
+		assertEquals(entries.get(0).end(), Files.size(path));
+
+		List<UserJournal.Entry> appended = journal.append(List.of(user("3")), ACCEPTED_AT);
+		journal.close();
+		journal = UserJournal.open(path);
+
+		assertEquals(List.of("1", "3"), ids(journal.pending()));
+		assertEquals(appended.get(0).end(), Files.size(path));
+	}
+
+	@Test
+	void testDropCorruptRecord() throws Exception {
+		Path path = directory.resolve("users.journal");
+		journal = UserJournal.open(path);
+		List<UserJournal.Entry> entries = journal.append(List.of(user("1"), user("2")), ACCEPTED_AT);
+		journal.close();
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+			channel.write(ByteBuffer.wrap(new byte[] { 0x7f }), entries.get(1).end() - 1);
+		}
+
+		journal = UserJournal.open(path);
+
+		assertEquals(List.of("1"), ids(journal.pending()));
+	}
+
+	@Test
+	void testTruncateOnceEverythingIsStored() throws Exception {
+		Path path = directory.resolve("users.journal");
+		journal = UserJournal.open(path);
+		List<UserJournal.Entry> entries = journal.append(List.of(user("1"), user("2")), ACCEPTED_AT);
+
+		journal.stored(entries.get(1).end());
+
+		assertEquals(0L, Files.size(path));
+
+		List<UserJournal.Entry> appended = journal.append(List.of(user("3")), ACCEPTED_AT);
+		journal.close();
+		journal = UserJournal.open(path);
+
+		assertEquals(List.of("3"), ids(journal.pending()));
+		assertEquals(appended.get(0).end(), Files.size(path));
+	}
+
+	private static User user(final String id) {
+		return User.builder().id(id).name("User " + id).email(id + "@mail.com").password("hash").build();
+	}
+
+	private static List<String> ids(final List<UserJournal.Entry> entries) {
+		return entries.stream().map(entry -> entry.user().getId()).toList();
+	}
+
+}
@@ -0,0 +1,96 @@
+package br.com.ju.webflux.course.service;
+
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import br.com.ju.webflux.course.config.LookupProperties;
+import br.com.ju.webflux.course.entity.User;
+import br.com.ju.webflux.course.repository.ConsistencyToken;
+import br.com.ju.webflux.course.repository.UserRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+class UserLookupBatcherTest {
+
+	@Mock
+	private UserRepository repository;
+	
+	private UserLookupBatcher batcher;
+	
+	private static final String ID = "64b7f0c2a1d3e45f6a7b8c9d";
+	private static final String OTHER_ID = "64b7f0c2a1d3e45f6a7b8c9e";
+	private static final String MISSING_ID = "64b7f0c2a1d3e45f6a7b8c9f";
+	
+	@AfterEach
+	void tearDown() {
+		batcher.destroy();
+	}
+	
+	@Test
+	void testFindByIdWithoutCoalescing() {
+		batcher = new UserLookupBatcher(repository, properties(false));
+		when(repository.findById(ID)).thenReturn(Mono.just(User.builder().id(ID).build()));
+		
+		StepVerifier.create(batcher.findById(ID))
+		.expectNextMatches(user -> ID.equals(user.getId()))
+		.expectComplete()
+		.verify();
+		
+		Mockito.verify(repository, times(1)).findById(ID);
+	}
+	
+	@Test
+	void testConcurrentLookupsShareOneQuery() {
+		batcher = new UserLookupBatcher(repository, properties(true));
+		when(repository.findAllById(anyCollection())).thenAnswer(invocation -> Flux
+				.fromIterable(invocation.<Collection<String>>getArgument(0))
+				.filter(id -> !MISSING_ID.equals(id))
+				.map(id -> User.builder().id(id).build()));
+		
+		Mono<String> first = batcher.findById(ID).map(User::getId);
+		Mono<String> second = batcher.findById(OTHER_ID).map(User::getId);
+		Mono<String> missing = batcher.findById(MISSING_ID).map(User::getId).defaultIfEmpty("empty");
+		
+		StepVerifier.create(Flux.merge(first, second, missing).collectList())
+		.expectNextMatches(ids -> ids.containsAll(List.of(ID, OTHER_ID, "empty")))
+		.expectComplete()
+		.verify(Duration.ofSeconds(5));
+		
+		Mockito.verify(repository, times(1)).findAllById(anyCollection());
+	}
+	
+	@Test
+	void testLookupWithConsistencyTokenBypassesBatch() {
+		batcher = new UserLookupBatcher(repository, properties(true));
+		when(repository.findById(ID)).thenReturn(Mono.just(User.builder().id(ID).build()));
+		
+		StepVerifier.create(batcher.findById(ID)
+				.contextWrite(context -> context.put(ConsistencyToken.class, ConsistencyToken.of("42"))))
+		.expectNextMatches(user -> ID.equals(user.getId()))
+		.expectComplete()
+		.verify(Duration.ofSeconds(5));
+		
+		Mockito.verify(repository, times(1)).findById(ID);
+		Mockito.verify(repository, times(0)).findAllById(anyCollection());
+	}
+	
+	private static LookupProperties properties(final boolean coalescing) {
+		return new LookupProperties(1000,
+				new LookupProperties.Coalescing(coalescing, Duration.ofMillis(50), 128, 4));
+	}
+
+}
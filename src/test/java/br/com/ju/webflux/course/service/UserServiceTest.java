@@ -3,24 +3,45 @@ package br.com.ju.webflux.course.service;
 import static java.lang.String.format;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.when;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
+import java.util.function.Function;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
 
+
+import br.com.ju.webflux.course.cache.EmailFilter;
+import br.com.ju.webflux.course.cache.UserCache;
 import br.com.ju.webflux.course.entity.User;
 import br.com.ju.webflux.course.mapper.UserMapper;
+import br.com.ju.webflux.course.metrics.UserMetrics;
 import br.com.ju.webflux.course.model.request.UserRequest;
+import br.com.ju.webflux.course.model.request.UserUpdateRequest;
+import br.com.ju.webflux.course.model.response.UserBatchResponse;
+import br.com.ju.webflux.course.model.response.UserBatchResponse.Status;
 import br.com.ju.webflux.course.repository.UserRepository;
+import br.com.ju.webflux.course.repository.WriteError;
 import br.com.ju.webflux.course.service.exception.ObjectNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validator;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
@@ -37,10 +58,40 @@ class UserServiceTest {
 	@Mock
 	private UserRepository repository;
 	
+	@Mock
+	private UserCache cache;
+	
+	@Mock
+	private Validator validator;
+	
+	@Mock
+	private UserLookupBatcher batcher;
+	
+	@Mock
+	private EmailFilter emailFilter;
+	
+	@Mock
+	private PasswordHasher hasher;
+	
+	@Mock
+	private UserWriteBehind writeBehind;
+	
+	@Spy
+	private UserMetrics metrics = new UserMetrics(new SimpleMeterRegistry());
+	
 	private static final String ID = "12345";
+	private static final String OTHER_ID = "67890";
 	private static final String PASSWORD = "123";
 	private static final String NAME = "Sara Mello";
 	private static final String EMAIL = "sara@mail.com";
+	private static final String HASH = "$2a$10$hash";
+	
+	@BeforeEach
+	void setUp() {
+		lenient().when(cache.get(anyString(), any()))
+		.thenAnswer(invocation -> invocation.<Function<String, Mono<User>>>getArgument(1).apply(invocation.getArgument(0)));
+		lenient().when(hasher.hash(anyString())).thenReturn(Mono.just(HASH));
+	}
 
 	@Test
 	void testSave() {
@@ -58,11 +109,148 @@ class UserServiceTest {
 		.verify();
 		
 		Mockito.verify(repository, times(1)).save(any(User.class));
+		Mockito.verify(repository, times(0)).existsByEmail(anyString(), any());
+	}
+	
+	@Test
+	void testSaveWithWriteBehind() {
+		UserRequest request = new UserRequest(NAME, EMAIL, PASSWORD);
+		
+		when(writeBehind.isEnabled()).thenReturn(true);
+		when(mapper.toEntity(any(UserRequest.class))).thenReturn(User.builder().password(PASSWORD).build());
+		when(writeBehind.accept(any(User.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+		
+		StepVerifier.create(service.save(request))
+		.expectNextMatches(user -> HASH.equals(user.getPassword()))
+		.expectComplete()
+		.verify();
+		
+		Mockito.verify(repository, times(0)).save(any(User.class));
+		Mockito.verify(cache, times(1)).put(any(User.class));
+	}
+	
+	@Test
+	void testSaveHashesPassword() {
+		UserRequest request = new UserRequest(NAME, EMAIL, PASSWORD);
+		
+		when(mapper.toEntity(any(UserRequest.class))).thenReturn(User.builder().password(PASSWORD).build());
+		when(repository.save(any(User.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+		
+		StepVerifier.create(service.save(request))
+		.expectNextMatches(user -> HASH.equals(user.getPassword()))
+		.expectComplete()
+		.verify();
+		
+		Mockito.verify(hasher, times(1)).hash(PASSWORD);
+	}
+	
+	@Test
+	void testSaveWithDuplicateEmail() {
+		UserRequest request = new UserRequest(NAME, EMAIL, PASSWORD);
+		
+		when(emailFilter.mightContain(EMAIL)).thenReturn(true);
+		when(repository.existsByEmail(EMAIL, null)).thenReturn(Mono.just(true));
+		
+		StepVerifier.create(service.save(request))
+		.expectError(DuplicateKeyException.class)
+		.verify();
+		
+		Mockito.verify(repository, times(0)).save(any(User.class));
+	}
+	
+	@Test
+	void testSaveAll() {
+		UserRequest request = new UserRequest(NAME, EMAIL, PASSWORD);
+		WriteError duplicate = WriteError.duplicateKey(1, "duplicate key");
+		
+		when(mapper.toEntity(any(UserRequest.class))).thenAnswer(invocation -> User.builder().build());
+		when(repository.insertAll(anyList())).thenReturn(Mono.just(List.of(duplicate)));
+		
+		Flux<UserBatchResponse> result = service.saveAll(Flux.just(request, request), 10);
+		
+		StepVerifier.create(result)
+		.expectNextMatches(response -> response.index() == 0 && response.status() == Status.CREATED)
+		.expectNextMatches(response -> response.index() == 1 && response.status() == Status.REJECTED
+				&& response.message().equals("E-mail already registered"))
+		.expectComplete()
+		.verify();
+		
+		Mockito.verify(validator, times(2)).validate(request);
+		Mockito.verify(repository, times(1)).insertAll(anyList());
+	}
+	
+	@Test
+	void testSaveAllInsertsHashedPasswords() {
+		UserRequest request = new UserRequest(NAME, EMAIL, PASSWORD);
+		List<String> inserted = new ArrayList<>();
+		
+		when(mapper.toEntity(any(UserRequest.class)))
+		.thenAnswer(invocation -> User.builder().password(PASSWORD).build());
+		when(repository.insertAll(anyList())).thenAnswer(invocation -> {
+			invocation.<List<User>>getArgument(0).forEach(user -> inserted.add(user.getPassword()));
+			return Mono.just(List.of());
+		});
+		
+		StepVerifier.create(service.saveAll(Flux.just(request, request), 10))
+		.expectNextCount(2)
+		.expectComplete()
+		.verify();
+		
+		assertEquals(List.of(HASH, HASH), inserted);
+	}
+	
+	@Test
+	void testSaveAllInChunks() {
+		UserRequest request = new UserRequest(NAME, EMAIL, PASSWORD);
+		
+		when(mapper.toEntity(any(UserRequest.class))).thenAnswer(invocation -> User.builder().build());
+		when(repository.insertAll(anyList())).thenReturn(Mono.just(List.of()));
+		
+		Flux<UserBatchResponse> result = service.saveAll(Flux.just(request, request, request), 2);
+		
+		StepVerifier.create(result)
+		.expectNextCount(3)
+		.expectComplete()
+		.verify();
+		
+		Mockito.verify(repository, times(2)).insertAll(anyList());
+	}
+	
+	@Test
+	void testUpdateAll() {
+		UserUpdateRequest found = new UserUpdateRequest(ID, NAME, null, null);
+		UserUpdateRequest missing = new UserUpdateRequest(OTHER_ID, NAME, null, null);
+		
+		when(mapper.toEntity(any(UserUpdateRequest.class))).thenAnswer(invocation -> User.builder()
+				.id(invocation.<UserUpdateRequest>getArgument(0).id()).build());
+		when(repository.updateAll(anyList())).thenReturn(Mono.just(List.of(WriteError.notFound(1))));
+		
+		StepVerifier.create(service.updateAll(Flux.just(found, missing), 10, 2))
+		.expectNextMatches(response -> response.index() == 0 && response.status() == Status.UPDATED)
+		.expectNextMatches(response -> response.index() == 1 && response.status() == Status.NOT_FOUND)
+		.expectComplete()
+		.verify();
+		
+		Mockito.verify(repository, times(1)).updateAll(anyList());
+		Mockito.verify(cache, times(1)).invalidate(ID);
+	}
+	
+	@Test
+	void testDeleteAll() {
+		when(repository.deleteAll(List.of(ID, OTHER_ID))).thenReturn(Mono.just(List.of(WriteError.notFound(1))));
+		
+		StepVerifier.create(service.deleteAll(Flux.just(ID, OTHER_ID), 10, 2))
+		.expectNextMatches(response -> response.index() == 0 && response.status() == Status.DELETED)
+		.expectNextMatches(response -> response.index() == 1 && response.status() == Status.NOT_FOUND)
+		.expectComplete()
+		.verify();
+		
+		Mockito.verify(cache, times(1)).invalidate(ID);
 	}
 	
 	@Test
 	void testFindById() {
-		when(repository.findById(anyString())).thenReturn(Mono.just(User.builder().build()));
+		when(batcher.findById(anyString())).thenReturn(Mono.just(User.builder().build()));
 		
 		Mono<User> result = service.findById(ID);
 		
@@ -71,7 +259,21 @@ class UserServiceTest {
 		.expectComplete()
 		.verify();
 		
-		Mockito.verify(repository, times(1)).findById(anyString());
+		Mockito.verify(batcher, times(1)).findById(anyString());
+	}
+	
+	@Test
+	void testFindAllById() {
+		when(repository.findAllById(anyCollection())).thenReturn(Flux.just(User.builder().build()));
+		
+		Flux<User> result = service.findAllById(List.of(ID));
+		
+		StepVerifier.create(result)
+		.expectNextMatches(Objects::nonNull)
+		.expectComplete()
+		.verify();
+		
+		Mockito.verify(repository, times(1)).findAllById(List.of(ID));
 	}
 	
 	@Test
@@ -88,51 +290,129 @@ class UserServiceTest {
 		Mockito.verify(repository, times(1)).findAll();
 	}
 	
+	@Test
+	void testFindPage() {
+		when(repository.findPage(anyString(), anyInt())).thenReturn(Flux.just(User.builder().build()));
+		
+		Flux<User> result = service.findPage(ID, 10);
+		
+		StepVerifier.create(result)
+		.expectNextMatches(Objects::nonNull)
+		.expectComplete()
+		.verify();
+		
+		Mockito.verify(repository, times(1)).findPage(ID, 10);
+	}
+	
+	@Test
+	void testStream() {
+		when(repository.stream(anyInt())).thenReturn(Flux.just(User.builder().build(), User.builder().build()));
+		
+		Flux<User> result = service.stream(1);
+		
+		StepVerifier.create(result, 1)
+		.expectNextCount(1)
+		.thenRequest(1)
+		.expectNextCount(1)
+		.expectComplete()
+		.verify();
+		
+		Mockito.verify(repository, times(1)).stream(1);
+	}
+	
+	@Test
+	void testFindByIdGoesThroughCache() {
+		when(batcher.findById(anyString())).thenReturn(Mono.just(User.builder().build()));
+		
+		StepVerifier.create(service.findById(ID))
+		.expectNextMatches(Objects::nonNull)
+		.expectComplete()
+		.verify();
+		
+		Mockito.verify(cache, times(1)).get(anyString(), any());
+	}
+	
 	@Test
 	void testUpdate() {
 		UserRequest request = new UserRequest(NAME, EMAIL, PASSWORD);
 		User entity = User.builder().build();
 		
-		when(mapper.toEntity(any(UserRequest.class), any(User.class))).thenReturn(entity);
-		when(repository.findById(anyString())).thenReturn(Mono.just(entity));
-		when(repository.save(any(User.class))).thenReturn(Mono.just(entity));
+		when(mapper.toEntity(any(UserRequest.class))).thenReturn(entity);
+		when(repository.update(anyString(), any(User.class), any())).thenReturn(Mono.just(entity));
 		
-		Mono<User> result = service.update(ID, request);
+		Mono<User> result = service.update(ID, request, null);
 		
 		StepVerifier.create(result)
 		.expectNextMatches(Objects::nonNull)
 		.expectComplete()
 		.verify();
 		
-		Mockito.verify(repository, times(1)).save(any(User.class));
+		Mockito.verify(repository, times(1)).update(ID, entity, null);
+		Mockito.verify(cache, times(1)).put(entity);
+	}
+	
+	@Test
+	void testUpdateNotFound() {
+		UserRequest request = new UserRequest(NAME, EMAIL, PASSWORD);
+		
+		when(mapper.toEntity(any(UserRequest.class))).thenReturn(User.builder().build());
+		when(repository.update(anyString(), any(User.class), any())).thenReturn(Mono.empty());
+		
+		StepVerifier.create(service.update(ID, request, null))
+		.expectError(ObjectNotFoundException.class)
+		.verify();
+	}
+	
+	@Test
+	void testUpdateWithStaleVersion() {
+		UserRequest request = new UserRequest(NAME, EMAIL, PASSWORD);
+		
+		when(mapper.toEntity(any(UserRequest.class))).thenReturn(User.builder().build());
+		when(repository.update(anyString(), any(User.class), any())).thenReturn(Mono.empty());
+		when(repository.existsById(anyString())).thenReturn(Mono.just(true));
+		
+		StepVerifier.create(service.update(ID, request, 1L))
+		.expectError(OptimisticLockingFailureException.class)
+		.verify();
+		
+		Mockito.verify(cache, times(1)).invalidate(ID);
 	}
 	
 	@Test
 	void testDelete() {
-		User entity = User.builder().build();
-		when(repository.findAndRemove(anyString())).thenReturn(Mono.just(entity));
+		when(repository.delete(anyString(), any())).thenReturn(Mono.just(true));
 		
-		Mono<User> result = service.delete(ID);
+		Mono<Void> result = service.delete(ID, null);
 		
 		StepVerifier.create(result)
-		.expectNextMatches(Objects::nonNull)
 		.expectComplete()
 		.verify();
 		
-		Mockito.verify(repository, times(1)).findAndRemove(anyString());
+		Mockito.verify(repository, times(1)).delete(ID, null);
+		Mockito.verify(cache, times(1)).invalidate(ID);
+	}
+	
+	@Test
+	void testDeleteNotFound() {
+		when(repository.delete(anyString(), any())).thenReturn(Mono.just(false));
+		
+		StepVerifier.create(service.delete(ID, null))
+		.expectError(ObjectNotFoundException.class)
+		.verify();
+		
+		Mockito.verify(cache, times(1)).invalidate(ID);
 	}
 	
 	@Test
 	void testHandleNotFound() {
-		when(repository.findById(anyString())).thenReturn(Mono.empty());
-		
-		try {
-			service.findById(ID).block();
-		} catch (Exception ex) {
-			assertEquals(ObjectNotFoundException.class, ex.getClass());
-			assertEquals(format("Object not found. Id: %s, Type: %s ", ID, User.class.getSimpleName()),
-					ex.getMessage());
-		}
+		when(batcher.findById(anyString())).thenReturn(Mono.empty());
+		
+		StepVerifier.create(service.findById(ID))
+		.expectComplete()
+		.verify();
+		
+		assertEquals(format("Object not found. Id: %s, Type: %s ", ID, User.class.getSimpleName()),
+				ObjectNotFoundException.message(ID, User.class));
 	}
 
 }
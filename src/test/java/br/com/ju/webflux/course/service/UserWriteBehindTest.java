@@ -0,0 +1,79 @@
+package br.com.ju.webflux.course.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import br.com.ju.webflux.course.cache.UserCache;
+import br.com.ju.webflux.course.config.WriteBehindProperties;
+import br.com.ju.webflux.course.entity.User;
+import br.com.ju.webflux.course.repository.UserRepository;
+import br.com.ju.webflux.course.repository.WriteError;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+
+@ExtendWith(MockitoExtension.class)
+class UserWriteBehindTest {
+
+	@TempDir
+	private Path directory;
+
+	@Mock
+	private UserRepository repository;
+
+	@Mock
+	private UserCache cache;
+
+	private UserWriteBehind writeBehind;
+
+	@AfterEach
+	void tearDown() throws Exception {
+		writeBehind.destroy();
+	}
+
+	@Test
+	void testRejectedUserIsEvictedFromCache() {
+		when(repository.insertAll(anyList()))
+		.thenReturn(Mono.just(List.of(WriteError.duplicateKey(0, "duplicate key"))));
+		writeBehind = writeBehind(Duration.ofMillis(2), Duration.ofMillis(10));
+
+		User accepted = writeBehind.accept(user()).block();
+
+		Mockito.verify(cache, timeout(2000)).invalidate(accepted.getId());
+	}
+
+	@Test
+	void testDestroyAnswersAcceptedUsers() throws Exception {
+		writeBehind = writeBehind(Duration.ofHours(1), Duration.ofHours(1));
+
+		CompletableFuture<User> accepted = writeBehind.accept(user()).toFuture();
+		writeBehind.destroy();
+
+		assertEquals("Sara Mello", accepted.getNow(null).getName());
+	}
+
+	private UserWriteBehind writeBehind(final Duration commitWindow, final Duration drainInterval) {
+		return new UserWriteBehind(new WriteBehindProperties(true, directory.resolve("users.journal"), commitWindow,
+				256, 500, drainInterval, 0, Duration.ofMillis(10), Duration.ofSeconds(5)),
+				repository, cache, new SimpleMeterRegistry());
+	}
+
+	private static User user() {
+		return User.builder().name("Sara Mello").email("sara@mail.com").password("hash").build();
+	}
+
+}